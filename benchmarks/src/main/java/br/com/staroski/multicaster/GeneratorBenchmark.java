@@ -0,0 +1,97 @@
+package br.com.staroski.multicaster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// in the generator package to reach the package private Template
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({ "java.awt.event.MouseListener", "java.sql.Connection", "java.sql.ResultSet" })
+    private String interfaceName;
+
+    @Param({ "TREE", "SELECTIVE" })
+    private MulticasterMode mode;
+
+    private final MulticasterGenerator generator = new MulticasterGenerator();
+
+    private final StringBuilder out = new StringBuilder();
+
+    private Class<?> interfaceType;
+
+    // values of the size of a real generation, the generated source stands for the methods of the interface
+    private final Map<String, String> values = new HashMap<>();
+
+    @Benchmark
+    public String generate() throws IOException {
+        return generator.generate("benchmarks.GeneratedMulticaster", interfaceType);
+    }
+
+    @Benchmark
+    public StringBuilder generateInto() throws IOException {
+        out.setLength(0);
+        generator.generate(out, "benchmarks.GeneratedMulticaster", interfaceType);
+        return out;
+    }
+
+    @Benchmark
+    public StringBuilder renderTemplate() throws IOException {
+        out.setLength(0);
+        return Template.load(mode.getTemplate()).render(values, out);
+    }
+
+    // how the templates were filled before Template: read on every generation and then one String.replace per tag
+    @Benchmark
+    public String replaceTemplate() throws IOException {
+        String javaCode = read(mode.getTemplate());
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            javaCode = javaCode.replace(value.getKey(), value.getValue());
+        }
+        return javaCode.trim();
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        interfaceType = Class.forName(interfaceName);
+        generator.setMode(mode);
+        values.put("${class.package}", "package benchmarks;");
+        values.put("${class.imports}", "import " + interfaceName + ";");
+        values.put("${class.name}", "GeneratedMulticaster");
+        values.put("${interfaces.names}", interfaceType.getSimpleName());
+        values.put("${multicaster.methods}", "");
+        values.put("${interfaces.methods}", generator.generate("benchmarks.GeneratedMulticaster", interfaceType));
+        values.put("${class.members}", "");
+        values.put("${async.dispatch}", "");
+        values.put("${parallel.threshold}", "1024");
+    }
+
+    private String read(String name) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = MulticasterGenerator.class.getResourceAsStream(name);
+        byte[] buffer = new byte[4096];
+        for (int read = -1; (read = in.read(buffer)) != -1; out.write(buffer, 0, read)) {}
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
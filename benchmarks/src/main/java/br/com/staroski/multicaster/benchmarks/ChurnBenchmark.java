@@ -0,0 +1,53 @@
+package br.com.staroski.multicaster.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// adds and removes one listener on top of a registry that already holds some
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChurnBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    private int listeners;
+
+    @Param({ "TREE", "ARRAY", "INDEXED", "ASYNC", "PARALLEL", "WEAK", "SELECTIVE", "PRIORITY", "FILTERED", "COPY_ON_WRITE", "LINKED_LIST" })
+    private String implementation;
+
+    private final SampleListener extra = new CountingListener();
+
+    private Registry registry;
+
+    private SampleListener[] registered;
+
+    @Benchmark
+    public void addAndRemove() {
+        registry.add(extra);
+        registry.remove(extra);
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        registry = Registries.create(implementation);
+        registered = new SampleListener[listeners];
+        for (int i = 0; i < listeners; i++) {
+            registered[i] = new CountingListener();
+            registry.add(registered[i]);
+        }
+    }
+}
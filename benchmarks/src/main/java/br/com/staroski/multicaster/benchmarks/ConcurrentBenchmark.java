@@ -0,0 +1,67 @@
+package br.com.staroski.multicaster.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// three threads dispatch while a fourth one keeps adding and removing a listener,
+// LINKED_LIST is left out because it is not safe for concurrent use
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentBenchmark {
+
+    @Param({ "10", "1000" })
+    private int listeners;
+
+    @Param({ "TREE", "ARRAY", "INDEXED", "ASYNC", "PARALLEL", "WEAK", "SELECTIVE", "PRIORITY", "FILTERED", "COPY_ON_WRITE" })
+    private String implementation;
+
+    private final SampleEvent event = new SampleEvent(1);
+
+    private final SampleListener extra = new CountingListener();
+
+    private Registry registry;
+
+    private SampleListener[] registered;
+
+    @Benchmark
+    @Group("registerWhileDispatching")
+    @GroupThreads(1)
+    public void register() {
+        registry.add(extra);
+        registry.remove(extra);
+    }
+
+    @Benchmark
+    @Group("registerWhileDispatching")
+    @GroupThreads(3)
+    public void fire() {
+        registry.fire(event);
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        registry = Registries.create(implementation);
+        registered = new SampleListener[listeners];
+        for (int i = 0; i < listeners; i++) {
+            registered[i] = new CountingListener();
+            registry.add(registered[i]);
+        }
+    }
+}
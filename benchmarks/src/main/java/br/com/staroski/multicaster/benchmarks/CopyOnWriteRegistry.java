@@ -0,0 +1,26 @@
+package br.com.staroski.multicaster.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+final class CopyOnWriteRegistry implements Registry {
+
+    private final List<SampleListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void add(SampleListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void fire(SampleEvent event) {
+        for (SampleListener listener : listeners) {
+            listener.anEvent(event);
+        }
+    }
+
+    @Override
+    public void remove(SampleListener listener) {
+        listeners.remove(listener);
+    }
+}
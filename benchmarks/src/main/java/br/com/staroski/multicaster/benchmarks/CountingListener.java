@@ -0,0 +1,21 @@
+package br.com.staroski.multicaster.benchmarks;
+
+final class CountingListener implements SampleListener {
+
+    long count;
+
+    @Override
+    public void anEvent(SampleEvent event) {
+        count += event.sequence;
+    }
+
+    @Override
+    public void oneMoreEvent(SampleEvent event) {
+        count++;
+    }
+
+    @Override
+    public void otherEvent(SampleEvent event) {
+        count--;
+    }
+}
@@ -0,0 +1,52 @@
+package br.com.staroski.multicaster.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    @Param({ "1", "10", "100", "1000", "10000" })
+    private int listeners;
+
+    @Param({ "TREE", "ARRAY", "INDEXED", "ASYNC", "PARALLEL", "WEAK", "SELECTIVE", "PRIORITY", "FILTERED", "ARRAY_JFR", "COPY_ON_WRITE", "LINKED_LIST" })
+    private String implementation;
+
+    private final SampleEvent event = new SampleEvent(1);
+
+    private Registry registry;
+
+    // the registry may only hold its listeners weakly
+    private SampleListener[] registered;
+
+    @Benchmark
+    public void fire() {
+        registry.fire(event);
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        registry = Registries.create(implementation);
+        registered = new SampleListener[listeners];
+        for (int i = 0; i < listeners; i++) {
+            registered[i] = new CountingListener();
+            registry.add(registered[i]);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.staroski.multicaster.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.staroski.multicaster.MulticasterGenerator;
+import br.com.staroski.multicaster.MulticasterMode;
+
+// listeners that only care about one key out of ten: SELF_FILTERING listeners check the event themselves,
+// FILTERED ones share one filter per key so each event is checked once per key
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final String PACKAGE = "br.com.staroski.multicaster.benchmarks.generated";
+
+    private static final int KEYS = 10;
+
+    @Param({ "100", "1000", "10000" })
+    private int listeners;
+
+    @Param({ "SELF_FILTERING", "FILTERED" })
+    private String implementation;
+
+    private final SampleEvent event = new SampleEvent(3);
+
+    private KeyedRegistry registry;
+
+    @Benchmark
+    public void fire() {
+        registry.fire(event);
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        boolean filtered = implementation.equals("FILTERED");
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setMode(filtered ? MulticasterMode.FILTERED : MulticasterMode.ARRAY);
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PACKAGE).append(";\n\n");
+        source.append("import ").append(KeyedRegistry.class.getName()).append(";\n");
+        source.append("import ").append(SampleEvent.class.getName()).append(";\n");
+        source.append("import ").append(SampleListener.class.getName()).append(";\n\n");
+        source.append("public final class KeyedMulticasterRegistry implements KeyedRegistry {\n\n");
+        source.append("    private SampleListener listener;\n\n");
+        if (filtered) {
+            source.append("    private final KeyedMulticaster.Filter[] filters = new KeyedMulticaster.Filter[").append(KEYS).append("];\n\n");
+            source.append("    public KeyedMulticasterRegistry() {\n");
+            source.append("        for (int k = 0; k < filters.length; k++) {\n");
+            source.append("            int key = k;\n");
+            source.append("            filters[k] = (method, arguments) -> ((SampleEvent) arguments[0]).sequence % ").append(KEYS).append(" == key;\n");
+            source.append("        }\n");
+            source.append("    }\n\n");
+            source.append("    public void add(SampleListener listenerToAdd, int key) {\n");
+            source.append("        listener = KeyedMulticaster.add(listener, listenerToAdd, filters[key]);\n");
+            source.append("    }\n\n");
+        } else {
+            source.append("    public void add(SampleListener listenerToAdd, int key) {\n");
+            source.append("        listener = KeyedMulticaster.add(listener, new SampleListener() {\n");
+            source.append("            public void anEvent(SampleEvent event) {\n");
+            source.append("                if (event.sequence % ").append(KEYS).append(" != key) {\n");
+            source.append("                    return;\n");
+            source.append("                }\n");
+            source.append("                listenerToAdd.anEvent(event);\n");
+            source.append("            }\n");
+            source.append("            public void otherEvent(SampleEvent event) {}\n");
+            source.append("            public void oneMoreEvent(SampleEvent event) {}\n");
+            source.append("        });\n");
+            source.append("    }\n\n");
+        }
+        source.append("    public void fire(SampleEvent event) {\n");
+        source.append("        listener.anEvent(event);\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put(PACKAGE + ".KeyedMulticaster", generator.generate(PACKAGE + ".KeyedMulticaster", SampleListener.class.getName()));
+        sources.put(PACKAGE + ".KeyedMulticasterRegistry", source.toString());
+        ClassLoader loader = InMemoryCompiler.compile(sources);
+        registry = (KeyedRegistry) loader.loadClass(PACKAGE + ".KeyedMulticasterRegistry").getDeclaredConstructor().newInstance();
+        for (int i = 0; i < listeners; i++) {
+            registry.add(new CountingListener(), i % KEYS);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.staroski.multicaster.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+// compiles the generated sources against the benchmark class path and loads them, nothing is written to disk
+final class InMemoryCompiler {
+
+    private static final class ClassOutput extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassOutput(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    private static final class SourceInput extends SimpleJavaFileObject {
+
+        private final String code;
+
+        SourceInput(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    static ClassLoader compile(Map<String, String> sources) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("The benchmarks must run on a JDK to compile the generated multicasters!");
+        }
+        List<JavaFileObject> units = new ArrayList<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            units.add(new SourceInput(source.getKey(), source.getValue()));
+        }
+        Map<String, ClassOutput> classes = new HashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null, null);
+        ForwardingJavaFileManager<StandardJavaFileManager> manager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardManager) {
+
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) {
+                ClassOutput output = new ClassOutput(className);
+                classes.put(className, output);
+                return output;
+            }
+        };
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"));
+        if (!compiler.getTask(null, manager, diagnostics, options, null, units).call()) {
+            StringBuilder message = new StringBuilder("Generated sources do not compile!");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append("\n").append(diagnostic);
+            }
+            throw new IllegalStateException(message.toString());
+        }
+        manager.close();
+        return new ClassLoader(InMemoryCompiler.class.getClassLoader()) {
+
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ClassOutput output = classes.get(name);
+                if (output == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                byte[] bytes = output.bytes.toByteArray();
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+
+    private InMemoryCompiler() {}
+}
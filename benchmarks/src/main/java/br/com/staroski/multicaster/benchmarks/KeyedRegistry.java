@@ -0,0 +1,9 @@
+package br.com.staroski.multicaster.benchmarks;
+
+// a registry where each listener only wants the events of one key, the sequence of the event modulo the key count
+public interface KeyedRegistry {
+
+    void add(SampleListener listener, int key);
+
+    void fire(SampleEvent event);
+}
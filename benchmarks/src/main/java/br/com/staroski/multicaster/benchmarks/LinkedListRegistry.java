@@ -0,0 +1,27 @@
+package br.com.staroski.multicaster.benchmarks;
+
+import java.util.LinkedList;
+import java.util.List;
+
+// the plain loop of the EventGenerator shown in the README, not safe for concurrent use
+final class LinkedListRegistry implements Registry {
+
+    private final List<SampleListener> listeners = new LinkedList<>();
+
+    @Override
+    public void add(SampleListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void fire(SampleEvent event) {
+        for (SampleListener listener : listeners) {
+            listener.anEvent(event);
+        }
+    }
+
+    @Override
+    public void remove(SampleListener listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.staroski.multicaster.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// every available thread keeps adding and removing its own listener on the same registry
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    @State(Scope.Thread)
+    public static class OwnListener {
+
+        final SampleListener listener = new CountingListener();
+    }
+
+    @Param({ "10", "1000" })
+    private int listeners;
+
+    @Param({ "ARRAY", "ARRAY_STRIPED", "TREE", "TREE_STRIPED", "COPY_ON_WRITE" })
+    private String implementation;
+
+    private Registry registry;
+
+    @Benchmark
+    public void register(OwnListener own) {
+        registry.add(own.listener);
+        registry.remove(own.listener);
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        registry = Registries.create(implementation);
+        for (int i = 0; i < listeners; i++) {
+            registry.add(new CountingListener());
+        }
+    }
+}
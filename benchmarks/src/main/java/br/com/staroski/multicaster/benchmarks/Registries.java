@@ -0,0 +1,75 @@
+package br.com.staroski.multicaster.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import br.com.staroski.multicaster.MulticasterGenerator;
+import br.com.staroski.multicaster.MulticasterMode;
+
+// creates a registry by name: COPY_ON_WRITE, LINKED_LIST or the name of a multicaster generation mode,
+// followed by _STRIPED for a striped holder or by _JFR for JFR events
+final class Registries {
+
+    private static final String PACKAGE = "br.com.staroski.multicaster.benchmarks.generated";
+
+    static Registry create(String implementation) throws Exception {
+        switch (implementation) {
+            case "COPY_ON_WRITE":
+                return new CopyOnWriteRegistry();
+            case "LINKED_LIST":
+                return new LinkedListRegistry();
+            default:
+                String[] parts = implementation.split("_", 2);
+                String option = parts.length > 1 ? parts[1] : "";
+                return generate(MulticasterMode.valueOf(parts[0]), option.equals("STRIPED"), option.equals("JFR"));
+        }
+    }
+
+    // the multicaster is generated with a holder, so concurrent registrations are not lost
+    private static Registry generate(MulticasterMode mode, boolean striped, boolean jfrEvents) throws Exception {
+        String name = mode.name().charAt(0) + mode.name().substring(1).toLowerCase() + (striped ? "Striped" : "") + (jfrEvents ? "Jfr" : "");
+        String holderName = striped ? "StripedHolder" : "Holder";
+        String multicasterName = name + "Multicaster";
+        String registryName = name + "Registry";
+
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setMode(mode);
+        generator.setHolder(!striped);
+        generator.setStripedHolder(striped);
+        generator.setJfrEvents(jfrEvents);
+        generator.setCompletionSignalling(mode == MulticasterMode.ASYNC);
+
+        StringBuilder registry = new StringBuilder();
+        registry.append("package ").append(PACKAGE).append(";\n\n");
+        registry.append("import ").append(Registry.class.getName()).append(";\n");
+        registry.append("import ").append(SampleEvent.class.getName()).append(";\n");
+        registry.append("import ").append(SampleListener.class.getName()).append(";\n\n");
+        registry.append("public final class ").append(registryName).append(" implements Registry {\n\n");
+        registry.append("    private final ").append(multicasterName).append(".").append(holderName).append("<SampleListener> listener = new ").append(multicasterName).append(".").append(holderName).append("<>();\n\n");
+        registry.append("    public void add(SampleListener listenerToAdd) {\n");
+        registry.append("        listener.add(listenerToAdd);\n");
+        registry.append("    }\n\n");
+        registry.append("    public void fire(SampleEvent event) {\n");
+        registry.append("        SampleListener current = listener.get();\n");
+        registry.append("        if (current != null) {\n");
+        registry.append("            current.anEvent(event);\n");
+        if (mode == MulticasterMode.ASYNC) {
+            // waits for the listeners, otherwise the executor queue would grow without bounds
+            registry.append("            ").append(multicasterName).append(".completion().join();\n");
+        }
+        registry.append("        }\n");
+        registry.append("    }\n\n");
+        registry.append("    public void remove(SampleListener listenerToRemove) {\n");
+        registry.append("        listener.remove(listenerToRemove);\n");
+        registry.append("    }\n");
+        registry.append("}\n");
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put(PACKAGE + "." + multicasterName, generator.generate(PACKAGE + "." + multicasterName, SampleListener.class.getName()));
+        sources.put(PACKAGE + "." + registryName, registry.toString());
+        ClassLoader loader = InMemoryCompiler.compile(sources);
+        return (Registry) loader.loadClass(PACKAGE + "." + registryName).getDeclaredConstructor().newInstance();
+    }
+
+    private Registries() {}
+}
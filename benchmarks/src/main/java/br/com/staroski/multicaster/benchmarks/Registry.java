@@ -0,0 +1,11 @@
+package br.com.staroski.multicaster.benchmarks;
+
+// the listener bookkeeping of an event source, implemented with a generated multicaster or with a collection
+public interface Registry {
+
+    void add(SampleListener listener);
+
+    void fire(SampleEvent event);
+
+    void remove(SampleListener listener);
+}
@@ -0,0 +1,10 @@
+package br.com.staroski.multicaster.benchmarks;
+
+public final class SampleEvent {
+
+    public final long sequence;
+
+    public SampleEvent(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.staroski.multicaster.benchmarks;
+
+public interface SampleListener {
+
+    void anEvent(SampleEvent event);
+
+    void otherEvent(SampleEvent event);
+
+    void oneMoreEvent(SampleEvent event);
+}
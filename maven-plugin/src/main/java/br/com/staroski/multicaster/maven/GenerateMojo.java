@@ -0,0 +1,340 @@
+package br.com.staroski.multicaster.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import br.com.staroski.multicaster.MulticasterGenerator;
+import br.com.staroski.multicaster.MulticasterMode;
+import br.com.staroski.multicaster.ResultReducer;
+
+// generates a multicaster for each configured interface, the ones whose methods and options did not change since the
+// last build are left untouched so the compiler does not see them as modified; it runs before the module is compiled,
+// so the interfaces come from its dependencies and its own output folder is left out of the class path
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.GENERATE_SOURCES, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true, required = true)
+    private PluginDescriptor plugin;
+
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/multicasters", required = true)
+    private File outputDirectory;
+
+    @Parameter(defaultValue = "${project.build.directory}/multicaster-fingerprints.properties", required = true)
+    private File fingerprintsFile;
+
+    // fully qualified names of interfaces
+    @Parameter
+    private List<String> interfaces = new ArrayList<>();
+
+    // package patterns, * stands for one package name and a trailing .** for any subpackage
+    @Parameter
+    private List<String> packages = new ArrayList<>();
+
+    @Parameter(defaultValue = "Multicaster", required = true)
+    private String classSuffix;
+
+    // the generated classes are package private, by default they go to the package of their interface
+    @Parameter
+    private String targetPackage;
+
+    @Parameter(defaultValue = "TREE", required = true)
+    private MulticasterMode mode;
+
+    @Parameter(defaultValue = "false")
+    private boolean coalescing;
+
+    @Parameter(defaultValue = "false")
+    private boolean completionSignalling;
+
+    @Parameter(defaultValue = "false")
+    private boolean holder;
+
+    @Parameter(defaultValue = "false")
+    private boolean jfrEvents;
+
+    @Parameter(defaultValue = "false")
+    private boolean metrics;
+
+    @Parameter(defaultValue = "1024")
+    private int parallelThreshold;
+
+    // method name to reducer name
+    @Parameter
+    private Map<String, String> resultReducers;
+
+    @Parameter(defaultValue = "false")
+    private boolean ringDispatcher;
+
+    @Parameter(defaultValue = "false")
+    private boolean sharedMemoryBridge;
+
+    @Parameter(defaultValue = "false")
+    private boolean stripedHolder;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        try (URLClassLoader loader = new URLClassLoader(getClasspath(), ClassLoader.getPlatformClassLoader())) {
+            Set<String> names = new TreeSet<>(interfaces);
+            if (!packages.isEmpty()) {
+                names.addAll(scan(loader.getURLs(), toPatterns(packages)));
+            }
+            MulticasterGenerator generator = createGenerator();
+            String options = getOptions();
+            Properties previous = loadFingerprints();
+            Properties current = new Properties();
+            // two interfaces with the same simple name would write the same file
+            Map<String, String> paths = new HashMap<>();
+            int generated = 0;
+            for (String name : names) {
+                Class<?> type = load(name, loader);
+                if (type == null) {
+                    continue;
+                }
+                String packageName = targetPackage != null ? targetPackage : type.getPackageName();
+                String fullClassName = packageName.isEmpty() ? type.getSimpleName() + classSuffix : packageName + "." + type.getSimpleName() + classSuffix;
+                String path = fullClassName.replace('.', '/') + ".java";
+                String previousName = paths.putIfAbsent(path, name);
+                if (previousName != null) {
+                    throw new MojoExecutionException(name + " and " + previousName + " would both generate " + fullClassName + ", set another targetPackage or classSuffix!");
+                }
+                // the path is kept with the fingerprint so the file can be deleted once the interface is gone
+                String fingerprint = fingerprint(options, type) + " " + path;
+                current.setProperty(name, fingerprint);
+                File file = new File(outputDirectory, path);
+                if (fingerprint.equals(previous.getProperty(name)) && file.isFile()) {
+                    continue;
+                }
+                // generated in memory first, a failure must not leave an empty or partial file behind
+                StringWriter source = new StringWriter();
+                generator.generate(source, fullClassName, type);
+                source.write('\n');
+                file.getParentFile().mkdirs();
+                Files.writeString(file.toPath(), source.toString(), StandardCharsets.UTF_8);
+                generated++;
+            }
+            int removed = 0;
+            for (String name : previous.stringPropertyNames()) {
+                String path = getPath(previous.getProperty(name));
+                if (!path.equals(getPath(current.getProperty(name, ""))) && new File(outputDirectory, path).delete()) {
+                    removed++;
+                }
+            }
+            saveFingerprints(current);
+            getLog().info(generated + " multicasters generated, " + (current.size() - generated) + " up to date, " + removed + " removed");
+        } catch (MojoExecutionException e) {
+            throw e;
+        } catch (Exception | LinkageError e) {
+            throw new MojoExecutionException("Multicasters not generated: " + e, e);
+        }
+        project.addCompileSourceRoot(outputDirectory.getPath());
+    }
+
+    private MulticasterGenerator createGenerator() {
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setMode(mode);
+        generator.setCoalescing(coalescing);
+        generator.setCompletionSignalling(completionSignalling);
+        generator.setHolder(holder);
+        generator.setJfrEvents(jfrEvents);
+        generator.setMetrics(metrics);
+        generator.setParallelThreshold(parallelThreshold);
+        generator.setRingDispatcher(ringDispatcher);
+        generator.setSharedMemoryBridge(sharedMemoryBridge);
+        generator.setStripedHolder(stripedHolder);
+        if (resultReducers != null) {
+            for (Map.Entry<String, String> reducer : resultReducers.entrySet()) {
+                generator.setResultReducer(reducer.getKey(), ResultReducer.valueOf(reducer.getValue().trim()));
+            }
+        }
+        return generator;
+    }
+
+    private String fingerprint(String options, Class<?> type) throws NoSuchAlgorithmException {
+        Set<String> signatures = new TreeSet<>();
+        for (Method method : type.getMethods()) {
+            if (Modifier.isAbstract(method.getModifiers())) {
+                signatures.add(method.toGenericString());
+            }
+        }
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(options.getBytes(StandardCharsets.UTF_8));
+        for (String signature : signatures) {
+            digest.update((byte) '\n');
+            digest.update(signature.getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder text = new StringBuilder();
+        for (byte b : digest.digest()) {
+            text.append(String.format("%02x", b));
+        }
+        return text.toString();
+    }
+
+    // the classes of the module itself are missing or stale before it is compiled, so they are never used
+    private URL[] getClasspath() throws DependencyResolutionRequiredException, MalformedURLException {
+        File outputDirectory = new File(project.getBuild().getOutputDirectory()).getAbsoluteFile();
+        List<URL> urls = new ArrayList<>();
+        for (String element : project.getCompileClasspathElements()) {
+            File file = new File(element).getAbsoluteFile();
+            if (!file.equals(outputDirectory)) {
+                urls.add(file.toURI().toURL());
+            }
+        }
+        return urls.toArray(new URL[urls.size()]);
+    }
+
+    // everything the generated code depends on besides the interface itself
+    private String getOptions() {
+        return plugin.getVersion() + " " + mode + " " + coalescing + " " + completionSignalling + " " + holder + " " + jfrEvents + " " + metrics + " " + parallelThreshold + " " + resultReducers + " " + ringDispatcher + " " + sharedMemoryBridge + " " + stripedHolder + " " + classSuffix + " " + targetPackage;
+    }
+
+    private String getPath(String fingerprint) {
+        return fingerprint.substring(fingerprint.indexOf(' ') + 1);
+    }
+
+    // a configured name must be an interface, a class found by a package scan is skipped when it is not one
+    private Class<?> load(String name, ClassLoader loader) throws MojoExecutionException {
+        boolean configured = interfaces.contains(name);
+        try {
+            Class<?> type = Class.forName(name, false, loader);
+            if (type.isInterface() && !type.isAnnotation()) {
+                return type;
+            }
+            if (configured) {
+                throw new MojoExecutionException(name + " is not an interface!");
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            if (configured) {
+                throw new MojoExecutionException(name + " cannot be loaded from the dependencies, interfaces of the module itself need the annotation processor: " + e, e);
+            }
+            getLog().debug(name + " skipped: " + e);
+        }
+        return null;
+    }
+
+    private Properties loadFingerprints() throws IOException {
+        Properties fingerprints = new Properties();
+        if (fingerprintsFile.isFile()) {
+            try (InputStream in = Files.newInputStream(fingerprintsFile.toPath())) {
+                fingerprints.load(in);
+            }
+        }
+        return fingerprints;
+    }
+
+    private void saveFingerprints(Properties fingerprints) throws IOException {
+        fingerprintsFile.getParentFile().mkdirs();
+        try (OutputStream out = Files.newOutputStream(fingerprintsFile.toPath())) {
+            fingerprints.store(out, "multicaster-maven-plugin");
+        }
+    }
+
+    private Set<String> scan(URL[] classpath, List<Pattern> patterns) throws Exception {
+        Set<String> names = new TreeSet<>();
+        for (URL url : classpath) {
+            File element = new File(url.toURI());
+            if (element.isDirectory()) {
+                scanDirectory(element, "", patterns, names);
+            } else if (element.isFile()) {
+                try (JarFile jar = new JarFile(element)) {
+                    for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements();) {
+                        select(entries.nextElement().getName(), patterns, names);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    private void scanDirectory(File directory, String path, List<Pattern> patterns, Set<String> names) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                scanDirectory(file, path + file.getName() + "/", patterns, names);
+            } else {
+                select(path + file.getName(), patterns, names);
+            }
+        }
+    }
+
+    // top level and member classes of a matching package, anonymous and local classes are left out
+    private void select(String path, List<Pattern> patterns, Set<String> names) {
+        if (!path.endsWith(".class") || path.endsWith("module-info.class") || path.endsWith("package-info.class")) {
+            return;
+        }
+        String name = path.substring(0, path.length() - ".class".length()).replace('/', '.');
+        int index = name.lastIndexOf('.');
+        String packageName = index > 0 ? name.substring(0, index) : "";
+        if (name.matches(".*\\$\\d.*")) {
+            return;
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(packageName).matches()) {
+                names.add(name);
+                return;
+            }
+        }
+    }
+
+    private List<Pattern> toPatterns(List<String> packagePatterns) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String packagePattern : packagePatterns) {
+            String text = packagePattern.trim();
+            String suffix = "";
+            if (text.endsWith(".**")) {
+                text = text.substring(0, text.length() - 3);
+                suffix = "(\\..+)?";
+            }
+            StringBuilder regex = new StringBuilder();
+            String[] parts = text.split("\\*", -1);
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    regex.append("[^.]+");
+                }
+                if (!parts[i].isEmpty()) {
+                    regex.append(Pattern.quote(parts[i]));
+                }
+            }
+            patterns.add(Pattern.compile(regex + suffix));
+        }
+        return patterns;
+    }
+}
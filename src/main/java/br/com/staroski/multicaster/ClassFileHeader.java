@@ -0,0 +1,90 @@
+package br.com.staroski.multicaster;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// the access flags and name at the start of a class file, read without loading the class
+final class ClassFileHeader {
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_MODULE = 0x8000;
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    static ClassFileHeader read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file!");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        int count = in.readUnsignedShort();
+        // only the UTF-8 entries and the name index of the class entries are needed
+        String[] utf8 = new String[count];
+        int[] classNames = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classNames[i] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    i++; // takes two entries
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + "!");
+            }
+        }
+        int access = in.readUnsignedShort();
+        String name = utf8[classNames[in.readUnsignedShort()]];
+        return new ClassFileHeader(access, name);
+    }
+
+    private final int access;
+    private final String name;
+
+    private ClassFileHeader(int access, String name) {
+        this.access = access;
+        this.name = name;
+    }
+
+    // binary name, with dots, like Class.forName expects
+    String getClassName() {
+        return name.replace('/', '.');
+    }
+
+    boolean isInterface() {
+        return (access & ACC_INTERFACE) != 0 && (access & (ACC_ANNOTATION | ACC_MODULE)) == 0;
+    }
+
+    boolean isPublic() {
+        return (access & ACC_PUBLIC) != 0;
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.staroski.multicaster;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// generates a multicaster for the annotated interface while it is compiled, see MulticasterProcessor
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateMulticaster {
+
+    @Retention(RetentionPolicy.SOURCE)
+    @Target({})
+    public @interface Reducer {
+
+        String method();
+
+        ResultReducer reducer();
+    }
+
+    // the simple name of the generated class, the interface name followed by Multicaster when empty
+    String className() default "";
+
+    boolean coalescing() default false;
+
+    boolean completionSignalling() default false;
+
+    boolean holder() default false;
+
+    boolean jfrEvents() default false;
+
+    boolean metrics() default false;
+
+    MulticasterMode mode() default MulticasterMode.TREE;
+
+    int parallelThreshold() default 1024;
+
+    Reducer[] resultReducers() default {};
+
+    boolean ringDispatcher() default false;
+
+    boolean sharedMemoryBridge() default false;
+
+    boolean stripedHolder() default false;
+}
@@ -0,0 +1,52 @@
+package br.com.staroski.multicaster;
+
+import java.lang.reflect.Method;
+
+final class MethodModel {
+
+    static MethodModel of(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        TypeModel[] parameterTypes = new TypeModel[types.length];
+        for (int i = 0; i < types.length; i++) {
+            parameterTypes[i] = TypeModel.of(types[i]);
+        }
+        return new MethodModel(method.getName(), TypeModel.of(method.getReturnType()), parameterTypes);
+    }
+
+    private final String name;
+    private final TypeModel returnType;
+    private final TypeModel[] parameterTypes;
+    private final String signature;
+
+    MethodModel(String name, TypeModel returnType, TypeModel[] parameterTypes) {
+        this.name = name;
+        this.returnType = returnType;
+        this.parameterTypes = parameterTypes;
+        StringBuilder signature = new StringBuilder(name).append("(");
+        for (int i = 0; i < parameterTypes.length; i++) {
+            signature.append(i > 0 ? "," : "").append(parameterTypes[i].getName());
+        }
+        this.signature = signature.append(")").toString();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getParameterCount() {
+        return parameterTypes.length;
+    }
+
+    TypeModel[] getParameterTypes() {
+        return parameterTypes.clone();
+    }
+
+    TypeModel getReturnType() {
+        return returnType;
+    }
+
+    // name and parameter types, two methods with the same signature are dispatched once
+    String getSignature() {
+        return signature;
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.staroski.multicaster;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.util.function.Consumer;
+
+// composes listeners of an interface at run time, the composite calls them in registration order and reduces the results
+// of non void methods with the default ResultReducer of the return type: ALL_MATCH, SUM or FIRST_NON_NULL
+public final class Multicaster<T> {
+
+    private final Class<T> type;
+    private final Class<?> implementation;
+    private final MethodHandle constructor;
+    private final MethodHandle listeners;
+
+    Multicaster(Class<T> type, Class<?> implementation, MethodHandle constructor, MethodHandle listeners) {
+        this.type = type;
+        this.implementation = implementation;
+        this.constructor = constructor;
+        this.listeners = listeners;
+    }
+
+    public T add(T existingListener, T listenerToAdd) {
+        return type.cast(addInternal(existingListener, listenerToAdd));
+    }
+
+    public void forEach(T existingListener, Consumer<? super T> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("null");
+        }
+        if (existingListener == null) {
+            return;
+        }
+        for (Object listener : listenersOf(existingListener)) {
+            action.accept(type.cast(listener));
+        }
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public T remove(T existingListener, T listenerToRemove) {
+        return type.cast(removeInternal(existingListener, listenerToRemove));
+    }
+
+    public int size(T existingListener) {
+        if (existingListener == null) {
+            return 0;
+        }
+        return implementation.isInstance(existingListener) ? listenersOf(existingListener).length : 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T[] toArray(T existingListener) {
+        if (existingListener == null) {
+            return (T[]) Array.newInstance(type, 0);
+        }
+        Object[] listeners = listenersOf(existingListener);
+        T[] array = (T[]) Array.newInstance(type, listeners.length);
+        System.arraycopy(listeners, 0, array, 0, listeners.length);
+        return array;
+    }
+
+    private Object addInternal(Object existingObject, Object objectToAdd) {
+        if (existingObject == null) {
+            return objectToAdd;
+        }
+        if (objectToAdd == null) {
+            return existingObject;
+        }
+        Object[] existingListeners = listenersOf(existingObject);
+        Object[] listenersToAdd = listenersOf(objectToAdd);
+        Object[] merged = new Object[existingListeners.length + listenersToAdd.length];
+        System.arraycopy(existingListeners, 0, merged, 0, existingListeners.length);
+        System.arraycopy(listenersToAdd, 0, merged, existingListeners.length, listenersToAdd.length);
+        return newInstance(merged);
+    }
+
+    private Object[] listenersOf(Object object) {
+        if (implementation.isInstance(object)) {
+            try {
+                return (Object[]) listeners.invokeExact(object);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return new Object[] { object };
+    }
+
+    private Object newInstance(Object[] array) {
+        try {
+            return (Object) constructor.invokeExact(array);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Object removeInternal(Object existingObject, Object objectToRemove) {
+        if (existingObject == objectToRemove || existingObject == null) {
+            return null;
+        }
+        if (implementation.isInstance(existingObject)) {
+            Object[] array = listenersOf(existingObject);
+            for (int i = array.length - 1; i >= 0; i--) {
+                if (array[i] == objectToRemove) {
+                    if (array.length == 2) {
+                        return array[1 - i];
+                    }
+                    Object[] remaining = new Object[array.length - 1];
+                    System.arraycopy(array, 0, remaining, 0, i);
+                    System.arraycopy(array, i + 1, remaining, i, remaining.length - i);
+                    return newInstance(remaining);
+                }
+            }
+        }
+        return existingObject;
+    }
+}
@@ -0,0 +1,432 @@
+package br.com.staroski.multicaster;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+final class MulticasterClassWriter {
+
+    private static final class ByteVector {
+
+        private byte[] data = new byte[256];
+        private int length;
+
+        ByteVector putByte(int value) {
+            ensureCapacity(1);
+            data[length++] = (byte) value;
+            return this;
+        }
+
+        ByteVector putBytes(byte[] bytes, int count) {
+            ensureCapacity(count);
+            System.arraycopy(bytes, 0, data, length, count);
+            length += count;
+            return this;
+        }
+
+        ByteVector putInt(int value) {
+            return putShort(value >>> 16).putShort(value);
+        }
+
+        ByteVector putShort(int value) {
+            return putByte(value >>> 8).putByte(value);
+        }
+
+        ByteVector putShortAt(int offset, int value) {
+            data[offset] = (byte) (value >>> 8);
+            data[offset + 1] = (byte) value;
+            return this;
+        }
+
+        ByteVector putVector(ByteVector vector) {
+            return putBytes(vector.data, vector.length);
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[length];
+            System.arraycopy(data, 0, bytes, 0, length);
+            return bytes;
+        }
+
+        private void ensureCapacity(int count) {
+            if (length + count > data.length) {
+                byte[] grown = new byte[Math.max(data.length * 2, length + count)];
+                System.arraycopy(data, 0, grown, 0, length);
+                data = grown;
+            }
+        }
+    }
+
+    private static final int CLASS_VERSION = 52;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int ITEM_INTEGER = 1;
+    private static final int ITEM_FLOAT = 2;
+    private static final int ITEM_DOUBLE = 3;
+    private static final int ITEM_LONG = 4;
+    private static final int ITEM_OBJECT = 7;
+
+    private static final String FIELD_NAME = "listeners";
+    private static final String FIELD_DESCRIPTOR = "[Ljava/lang/Object;";
+
+    static String getDescriptor(Class<?> type) {
+        if (type.isPrimitive()) {
+            if (type == void.class) {
+                return "V";
+            }
+            if (type == boolean.class) {
+                return "Z";
+            }
+            if (type == byte.class) {
+                return "B";
+            }
+            if (type == char.class) {
+                return "C";
+            }
+            if (type == short.class) {
+                return "S";
+            }
+            if (type == int.class) {
+                return "I";
+            }
+            if (type == long.class) {
+                return "J";
+            }
+            if (type == float.class) {
+                return "F";
+            }
+            return "D";
+        }
+        if (type.isArray()) {
+            return type.getName().replace('.', '/');
+        }
+        return "L" + type.getName().replace('.', '/') + ";";
+    }
+
+    static String getDescriptor(Method method) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Class<?> type : method.getParameterTypes()) {
+            descriptor.append(getDescriptor(type));
+        }
+        return descriptor.append(")").append(getDescriptor(method.getReturnType())).toString();
+    }
+
+    private static String getInternalName(Class<?> type) {
+        return type.isArray() ? getDescriptor(type) : type.getName().replace('.', '/');
+    }
+
+    private static int getSize(Class<?> type) {
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private final String className;
+    private final Class<?> interfaceType;
+    private final Method[] methods;
+
+    private final ByteVector pool = new ByteVector();
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int constantCount = 1;
+
+    MulticasterClassWriter(String className, Class<?> interfaceType, Method[] methods) {
+        this.className = className;
+        this.interfaceType = interfaceType;
+        this.methods = methods;
+    }
+
+    byte[] toByteArray() {
+        ByteVector body = new ByteVector();
+        body.putShort(ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+        body.putShort(classConstant(className));
+        body.putShort(classConstant("java/lang/Object"));
+        body.putShort(1).putShort(classConstant(getInternalName(interfaceType)));
+
+        body.putShort(1);
+        body.putShort(ACC_PRIVATE | ACC_FINAL).putShort(utf8Constant(FIELD_NAME)).putShort(utf8Constant(FIELD_DESCRIPTOR)).putShort(0);
+
+        body.putShort(methods.length + 1);
+        writeConstructor(body);
+        for (Method method : methods) {
+            writeMethod(body, method);
+        }
+        body.putShort(0);
+
+        ByteVector file = new ByteVector();
+        file.putInt(0xCAFEBABE).putShort(0).putShort(CLASS_VERSION);
+        file.putShort(constantCount).putVector(pool);
+        file.putVector(body);
+        return file.toByteArray();
+    }
+
+    private int classConstant(String internalName) {
+        int name = utf8Constant(internalName);
+        return constant(CONSTANT_CLASS + ":" + internalName, CONSTANT_CLASS, name, -1);
+    }
+
+    private int constant(String key, int tag, int first, int second) {
+        Integer index = constants.get(key);
+        if (index == null) {
+            index = constantCount++;
+            pool.putByte(tag).putShort(first);
+            if (second >= 0) {
+                pool.putShort(second);
+            }
+            constants.put(key, index);
+        }
+        return index;
+    }
+
+    private int memberConstant(int tag, String owner, String name, String descriptor) {
+        int ownerClass = classConstant(owner);
+        int nameAndType = constant(CONSTANT_NAME_AND_TYPE + ":" + name + ":" + descriptor, CONSTANT_NAME_AND_TYPE, utf8Constant(name), utf8Constant(descriptor));
+        return constant(tag + ":" + owner + "." + name + ":" + descriptor, tag, ownerClass, nameAndType);
+    }
+
+    private int utf8Constant(String value) {
+        String key = CONSTANT_UTF8 + ":" + value;
+        Integer index = constants.get(key);
+        if (index == null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            index = constantCount++;
+            pool.putByte(CONSTANT_UTF8).putShort(bytes.length).putBytes(bytes, bytes.length);
+            constants.put(key, index);
+        }
+        return index;
+    }
+
+    private void writeCode(ByteVector body, int maxStack, int maxLocals, ByteVector code, ByteVector frames, int frameCount) {
+        int attributeLength = 12 + code.length;
+        if (frameCount > 0) {
+            attributeLength += 8 + frames.length;
+        }
+        body.putShort(1);
+        body.putShort(utf8Constant("Code")).putInt(attributeLength);
+        body.putShort(maxStack).putShort(maxLocals);
+        body.putInt(code.length).putVector(code);
+        body.putShort(0);
+        if (frameCount > 0) {
+            body.putShort(1);
+            body.putShort(utf8Constant("StackMapTable")).putInt(2 + frames.length);
+            body.putShort(frameCount).putVector(frames);
+        } else {
+            body.putShort(0);
+        }
+    }
+
+    private void writeConstructor(ByteVector body) {
+        body.putShort(ACC_PRIVATE).putShort(utf8Constant("<init>")).putShort(utf8Constant("(" + FIELD_DESCRIPTOR + ")V"));
+        ByteVector code = new ByteVector();
+        code.putByte(0x2A); // aload_0
+        code.putByte(0xB7).putShort(memberConstant(CONSTANT_METHODREF, "java/lang/Object", "<init>", "()V")); // invokespecial
+        code.putByte(0x2A); // aload_0
+        code.putByte(0x2B); // aload_1
+        code.putByte(0xB5).putShort(memberConstant(CONSTANT_FIELDREF, className, FIELD_NAME, FIELD_DESCRIPTOR)); // putfield
+        code.putByte(0xB1); // return
+        writeCode(body, 2, 2, code, null, 0);
+    }
+
+    // every branch target has the same locals and an empty stack
+    private void writeFrame(ByteVector frames, int offsetDelta, Method method) {
+        Class<?>[] parameters = method.getParameterTypes();
+        Class<?> returnType = method.getReturnType();
+        frames.putByte(255).putShort(offsetDelta);
+        frames.putShort(parameters.length + (returnType == void.class ? 3 : 4));
+        frames.putByte(ITEM_OBJECT).putShort(classConstant(className));
+        for (Class<?> type : parameters) {
+            writeFrameItem(frames, type);
+        }
+        frames.putByte(ITEM_OBJECT).putShort(classConstant(FIELD_DESCRIPTOR));
+        frames.putByte(ITEM_INTEGER);
+        if (returnType != void.class) {
+            writeFrameItem(frames, returnType);
+        }
+        frames.putShort(0);
+    }
+
+    private void writeFrameItem(ByteVector frames, Class<?> type) {
+        if (!type.isPrimitive()) {
+            frames.putByte(ITEM_OBJECT).putShort(classConstant(getInternalName(type)));
+        } else if (type == long.class) {
+            frames.putByte(ITEM_LONG);
+        } else if (type == float.class) {
+            frames.putByte(ITEM_FLOAT);
+        } else if (type == double.class) {
+            frames.putByte(ITEM_DOUBLE);
+        } else {
+            frames.putByte(ITEM_INTEGER);
+        }
+    }
+
+    private void writeLoad(ByteVector code, Class<?> type, int local) {
+        code.putByte(!type.isPrimitive() ? 0x19 // aload
+                : type == long.class ? 0x16 // lload
+                        : type == float.class ? 0x17 // fload
+                                : type == double.class ? 0x18 // dload
+                                        : 0x15) // iload
+                .putByte(local);
+    }
+
+    // listeners are called in array order, a non-void method reduces the results like the generated multicasters do by
+    // default: a boolean stops at the first false, a number is the sum of the results and an object the first non null one
+    private void writeMethod(ByteVector body, Method method) {
+        Class<?>[] parameters = method.getParameterTypes();
+        Class<?> returnType = method.getReturnType();
+        ResultReducer reducer = null;
+        if (returnType != void.class) {
+            reducer = ResultReducer.defaultFor(TypeModel.of(returnType));
+            if (!reducer.accepts(TypeModel.of(returnType))) {
+                throw new IllegalArgumentException(method.getName() + " returns " + returnType.getSimpleName() + " and cannot be reduced with " + reducer + "!");
+            }
+        }
+        body.putShort(ACC_PUBLIC).putShort(utf8Constant(method.getName())).putShort(utf8Constant(getDescriptor(method)));
+
+        int parameterSlots = 0;
+        for (Class<?> type : parameters) {
+            parameterSlots += getSize(type);
+        }
+        int array = 1 + parameterSlots;
+        int index = array + 1;
+        int result = index + 1;
+        int maxLocals = returnType == void.class ? result : result + getSize(returnType);
+        int maxStack = Math.max(Math.max(2, 1 + parameterSlots), 2 * getSize(returnType));
+        if (maxLocals > 255) {
+            throw new IllegalArgumentException(method + " has too many parameters!");
+        }
+
+        ByteVector code = new ByteVector();
+        code.putByte(0x2A); // aload_0
+        code.putByte(0xB4).putShort(memberConstant(CONSTANT_FIELDREF, className, FIELD_NAME, FIELD_DESCRIPTOR)); // getfield
+        code.putByte(0x3A).putByte(array); // astore
+        code.putByte(0x03); // iconst_0
+        code.putByte(0x36).putByte(index); // istore
+        if (returnType != void.class) {
+            writeZero(code, returnType);
+            writeStore(code, returnType, result);
+        }
+
+        int loop = code.length;
+        code.putByte(0x15).putByte(index); // iload
+        code.putByte(0x19).putByte(array); // aload
+        code.putByte(0xBE); // arraylength
+        int exit = code.length;
+        code.putByte(0xA2).putShort(0); // if_icmpge, patched below
+        code.putByte(0x19).putByte(array); // aload
+        code.putByte(0x15).putByte(index); // iload
+        code.putByte(0x32); // aaload
+        String owner = getInternalName(interfaceType);
+        code.putByte(0xC0).putShort(classConstant(owner)); // checkcast
+        int local = 1;
+        for (Class<?> type : parameters) {
+            writeLoad(code, type, local);
+            local += getSize(type);
+        }
+        code.putByte(0xB9).putShort(memberConstant(CONSTANT_INTERFACE_METHODREF, owner, method.getName(), getDescriptor(method))).putByte(1 + parameterSlots).putByte(0); // invokeinterface
+        int skip = -1;
+        if (reducer == ResultReducer.SUM) {
+            writeLoad(code, returnType, result);
+            code.putByte(returnType == long.class ? 0x61 // ladd
+                    : returnType == float.class ? 0x62 // fadd
+                            : returnType == double.class ? 0x63 // dadd
+                                    : 0x60); // iadd
+            if (returnType == byte.class) {
+                code.putByte(0x91); // i2b
+            } else if (returnType == short.class) {
+                code.putByte(0x93); // i2s
+            }
+            writeStore(code, returnType, result);
+        } else if (reducer == ResultReducer.ALL_MATCH && returnType == boolean.class) {
+            skip = code.length;
+            code.putByte(0x9A).putShort(0); // ifne, patched below
+            code.putByte(0x03); // iconst_0
+            code.putByte(0xAC); // ireturn
+        } else if (reducer == ResultReducer.ALL_MATCH) {
+            int falseConstant = memberConstant(CONSTANT_FIELDREF, "java/lang/Boolean", "FALSE", "Ljava/lang/Boolean;");
+            writeStore(code, returnType, result);
+            code.putByte(0xB2).putShort(falseConstant); // getstatic
+            writeLoad(code, returnType, result);
+            code.putByte(0xB6).putShort(memberConstant(CONSTANT_METHODREF, "java/lang/Boolean", "equals", "(Ljava/lang/Object;)Z")); // invokevirtual
+            skip = code.length;
+            code.putByte(0x99).putShort(0); // ifeq, patched below
+            code.putByte(0xB2).putShort(falseConstant); // getstatic
+            code.putByte(0xB0); // areturn
+        } else if (reducer == ResultReducer.FIRST_NON_NULL) {
+            writeStore(code, returnType, result);
+            writeLoad(code, returnType, result);
+            skip = code.length;
+            code.putByte(0xC6).putShort(0); // ifnull, patched below
+            writeLoad(code, returnType, result);
+            code.putByte(0xB0); // areturn
+        }
+        int next = code.length;
+        if (skip >= 0) {
+            code.putShortAt(skip + 1, next - skip);
+        }
+        code.putByte(0x84).putByte(index).putByte(1); // iinc
+        int jump = code.length;
+        code.putByte(0xA7).putShort(loop - jump); // goto
+        int end = code.length;
+        code.putShortAt(exit + 1, end - exit);
+        if (reducer == null) {
+            code.putByte(0xB1); // return
+        } else if (reducer == ResultReducer.SUM) {
+            writeLoad(code, returnType, result);
+            writeReturn(code, returnType);
+        } else if (reducer == ResultReducer.ALL_MATCH && returnType == boolean.class) {
+            code.putByte(0x04); // iconst_1
+            code.putByte(0xAC); // ireturn
+        } else if (reducer == ResultReducer.ALL_MATCH) {
+            code.putByte(0xB2).putShort(memberConstant(CONSTANT_FIELDREF, "java/lang/Boolean", "TRUE", "Ljava/lang/Boolean;")); // getstatic
+            code.putByte(0xB0); // areturn
+        } else {
+            code.putByte(0x01); // aconst_null
+            code.putByte(0xB0); // areturn
+        }
+
+        ByteVector frames = new ByteVector();
+        writeFrame(frames, loop, method);
+        if (skip >= 0) {
+            writeFrame(frames, next - loop - 1, method);
+            writeFrame(frames, end - next - 1, method);
+        } else {
+            writeFrame(frames, end - loop - 1, method);
+        }
+        writeCode(body, maxStack, maxLocals, code, frames, skip >= 0 ? 3 : 2);
+    }
+
+    private void writeReturn(ByteVector code, Class<?> type) {
+        code.putByte(!type.isPrimitive() ? 0xB0 // areturn
+                : type == long.class ? 0xAD // lreturn
+                        : type == float.class ? 0xAE // freturn
+                                : type == double.class ? 0xAF // dreturn
+                                        : 0xAC); // ireturn
+    }
+
+    private void writeStore(ByteVector code, Class<?> type, int local) {
+        code.putByte(!type.isPrimitive() ? 0x3A // astore
+                : type == long.class ? 0x37 // lstore
+                        : type == float.class ? 0x38 // fstore
+                                : type == double.class ? 0x39 // dstore
+                                        : 0x36) // istore
+                .putByte(local);
+    }
+
+    private void writeZero(ByteVector code, Class<?> type) {
+        code.putByte(!type.isPrimitive() ? 0x01 // aconst_null
+                : type == long.class ? 0x09 // lconst_0
+                        : type == float.class ? 0x0B // fconst_0
+                                : type == double.class ? 0x0E // dconst_0
+                                        : 0x03); // iconst_0
+    }
+}
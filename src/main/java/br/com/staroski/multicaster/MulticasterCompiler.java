@@ -0,0 +1,309 @@
+package br.com.staroski.multicaster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+// compiles generated multicasters in memory and keeps their class files in a folder, so later runs load them without compiling
+public final class MulticasterCompiler {
+
+    private static final class ClassOutput extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassOutput(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    private static final class SourceInput extends SimpleJavaFileObject {
+
+        private final String code;
+
+        SourceInput(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    private final MulticasterGenerator generator;
+    private final Path cacheDirectory;
+
+    // classes already defined by this compiler, by the key of their source
+    private final Map<String, Class<?>> defined = new ConcurrentHashMap<>();
+
+    public MulticasterCompiler(MulticasterGenerator generator, Path cacheDirectory) {
+        if (generator == null || cacheDirectory == null) {
+            throw new IllegalArgumentException("null");
+        }
+        this.generator = generator;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    // the generator is shared by every compilation, so the calls are serialized
+    public synchronized Class<?> compile(String fullClassName, Class<?>... interfacesTypes) throws IOException {
+        String source = generator.generate(fullClassName, interfacesTypes);
+        String key = getKey(source);
+        Class<?> type = defined.get(key);
+        if (type != null && interfacesTypes[0].isAssignableFrom(type)) {
+            return type;
+        }
+        // a class loader defines a name only once, another source with the same name gets a name of its own
+        if (isDefined(fullClassName, interfacesTypes[0])) {
+            return compile(fullClassName + "_" + key.substring(0, 16), interfacesTypes);
+        }
+        Path directory = cacheDirectory.resolve(key);
+        Map<String, byte[]> classes = read(directory);
+        if (classes == null) {
+            classes = compile(fullClassName, source, interfacesTypes);
+            write(directory, classes);
+        }
+        type = define(fullClassName, classes, interfacesTypes);
+        defined.put(key, type);
+        return type;
+    }
+
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public MulticasterGenerator getGenerator() {
+        return generator;
+    }
+
+    private Map<String, byte[]> compile(String fullClassName, String source, Class<?>[] interfacesTypes) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("A JDK is needed to compile " + fullClassName + "!");
+        }
+        Map<String, ClassOutput> outputs = new LinkedHashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        try (ForwardingJavaFileManager<StandardJavaFileManager> manager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardManager) {
+
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) {
+                ClassOutput output = new ClassOutput(className);
+                outputs.put(className, output);
+                return output;
+            }
+        }) {
+            List<String> options = Arrays.asList("-classpath", getClasspath(interfacesTypes), "-proc:none");
+            List<JavaFileObject> units = Collections.singletonList(new SourceInput(fullClassName, source));
+            if (!compiler.getTask(null, manager, diagnostics, options, null, units).call()) {
+                StringBuilder message = new StringBuilder(fullClassName + " does not compile!");
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    message.append("\n").append(diagnostic);
+                }
+                throw new IllegalStateException(message.toString());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (Map.Entry<String, ClassOutput> output : outputs.entrySet()) {
+            classes.put(output.getKey(), output.getValue().bytes.toByteArray());
+        }
+        return classes;
+    }
+
+    // next to the interface when its package is open to us, so non public interfaces work too, otherwise in a child of its class loader
+    private Class<?> define(String fullClassName, Map<String, byte[]> classes, Class<?>[] interfacesTypes) {
+        Class<?> interfaceType = interfacesTypes[0];
+        if (interfaceType.getPackageName().equals(getPackageName(fullClassName))) {
+            try {
+                Lookup lookup = MethodHandles.privateLookupIn(interfaceType, MethodHandles.lookup());
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    try {
+                        lookup.defineClass(entry.getValue());
+                    } catch (NoClassDefFoundError e) {
+                        // the class is defined but links against one of its nested classes not defined yet, it links again when used
+                        if (!classes.containsKey(String.valueOf(e.getMessage()).replace('/', '.'))) {
+                            throw e;
+                        }
+                    }
+                }
+                return lookup.findClass(fullClassName);
+            } catch (IllegalAccessException e) {
+                // the package is not open, the interfaces must be public
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        ClassLoader loader = new ClassLoader(interfaceType.getClassLoader()) {
+
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        try {
+            return loader.loadClass(fullClassName);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void delete(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            entries.forEach(files::add);
+        }
+        for (Path file : files) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    // the class path of this program, plus the jars or folders of the interfaces and of the types in their methods
+    private String getClasspath(Class<?>[] interfacesTypes) {
+        Set<String> elements = new LinkedHashSet<>();
+        for (String element : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!element.isEmpty()) {
+                elements.add(element);
+            }
+        }
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> interfaceType : interfacesTypes) {
+            types.add(interfaceType);
+            for (Method method : MulticasterGenerator.getMethods(interfaceType)) {
+                types.add(method.getDeclaringClass());
+                types.add(method.getReturnType());
+                types.addAll(Arrays.asList(method.getParameterTypes()));
+            }
+        }
+        for (Class<?> type : types) {
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            CodeSource codeSource = type.isPrimitive() ? null : type.getProtectionDomain().getCodeSource();
+            if (codeSource != null && codeSource.getLocation() != null) {
+                try {
+                    elements.add(Paths.get(codeSource.getLocation().toURI()).toString());
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    // not a file, the compiler cannot read it anyway
+                }
+            }
+        }
+        return String.join(File.pathSeparator, elements);
+    }
+
+    // the source holds the signatures of the interfaces and the templates of this version, the class files depend on the running JDK
+    private String getKey(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(String.valueOf(Runtime.version().feature()).getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String getPackageName(String fullClassName) {
+        int index = fullClassName.lastIndexOf('.');
+        return index > 0 ? fullClassName.substring(0, index) : "";
+    }
+
+    // only a class defined next to the interface can clash, the other ones get a class loader of their own
+    private boolean isDefined(String fullClassName, Class<?> interfaceType) {
+        if (!interfaceType.getPackageName().equals(getPackageName(fullClassName))) {
+            return false;
+        }
+        try {
+            Class.forName(fullClassName, false, interfaceType.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // null when nothing was cached for the key yet
+    private Map<String, byte[]> read(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.class")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                classes.put(name.substring(0, name.length() - ".class".length()), Files.readAllBytes(file));
+            }
+        }
+        return classes.isEmpty() ? null : classes;
+    }
+
+    // written aside and then moved, so other processes never read a folder that is only partly written
+    private void write(Path directory, Map<String, byte[]> classes) throws IOException {
+        Files.createDirectories(cacheDirectory);
+        Path temporary = Files.createTempDirectory(cacheDirectory, directory.getFileName() + ".");
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Files.write(temporary.resolve(entry.getKey() + ".class"), entry.getValue());
+        }
+        try {
+            Files.move(temporary, directory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            delete(temporary);
+        } catch (IOException e) {
+            delete(temporary);
+            if (!Files.isDirectory(directory)) {
+                throw e;
+            }
+        }
+    }
+}
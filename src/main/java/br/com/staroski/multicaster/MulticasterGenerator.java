@@ -1,27 +1,75 @@
 package br.com.staroski.multicaster;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 public class MulticasterGenerator {
 
+    private static final class DispatchedMethod {
+
+        final int id;
+        final String interfaceName;
+        final String typeName;
+        final MethodModel method;
+
+        DispatchedMethod(int id, TypeModel interfaceType, MethodModel method) {
+            this.id = id;
+            this.interfaceName = interfaceType.getName();
+            this.typeName = interfaceType.getSimpleName();
+            this.method = method;
+        }
+    }
+
     private static final String TAG_CLASS_PACKAGE = "${class.package}";
     private static final String TAG_CLASS_IMPORTS = "${class.imports}";
     private static final String TAG_CLASS_NAME = "${class.name}";
     private static final String TAG_INTERFACES_NAMES = "${interfaces.names}";
     private static final String TAG_MULTICASTER_METHODS = "${multicaster.methods}";
     private static final String TAG_INTERFACES_METHODS = "${interfaces.methods}";
+    private static final String TAG_CLASS_MEMBERS = "${class.members}";
+    private static final String TAG_ASYNC_DISPATCH = "${async.dispatch}";
+    private static final String TAG_COALESCER_METHODS = "${coalescer.methods}";
+    private static final String TAG_HOLDER_METHODS = "${holder.methods}";
+    private static final String TAG_STRIPED_HOLDER_METHODS = "${striped.holder.methods}";
+    private static final String TAG_PARALLEL_THRESHOLD = "${parallel.threshold}";
+    private static final String TAG_RING_METHODS = "${ring.methods}";
+    private static final String TAG_RING_PRIMITIVES = "${ring.primitives}";
+    private static final String TAG_RING_REFERENCES = "${ring.references}";
+    private static final String TAG_BRIDGE_ARITY = "${bridge.arity}";
+    private static final String TAG_BRIDGE_DECODERS = "${bridge.decoders}";
+    private static final String TAG_BRIDGE_METHODS = "${bridge.methods}";
+    private static final String TAG_BRIDGE_SIGNATURE = "${bridge.signature}";
+
+    // the reference types the shared memory bridge can encode besides enums, nothing is left to Java serialization
+    private static final Class<?>[] BRIDGE_TYPES = { String.class, Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class, Double.class, //
+            byte[].class, int[].class, long[].class, double[].class, String[].class };
+
+    private MulticasterMode mode = MulticasterMode.TREE;
+    private boolean completionSignalling;
+    private boolean coalescing;
+    private boolean holder;
+    private boolean jfrEvents;
+    private boolean metrics;
+    private boolean ringDispatcher;
+    private boolean sharedMemoryBridge;
+    private boolean stripedHolder;
+    private int parallelThreshold = 1024;
+    private final Map<String, ResultReducer> resultReducers = new HashMap<>();
+
+    // reused by every generation, so a generator must not be shared between threads
+    private final StringBuilder buffer = new StringBuilder(16384);
 
     public String generate(String fullClassName, String fullInterfaceName) throws Exception {
-        return generate(fullClassName, fullInterfaceName);
+        return generate(fullClassName, new String[] { fullInterfaceName });
     }
 
     public String generate(String fullClassName, String... fullInterfacesNames) throws Exception {
@@ -35,18 +83,317 @@ public class MulticasterGenerator {
         Class<?>[] interfacesTypes = new Class<?>[count];
         for (int i = 0; i < count; i++) {
             interfacesTypes[i] = Class.forName(fullInterfacesNames[i].trim());
-            if (!interfacesTypes[i].isInterface()) {
-                throw new IllegalArgumentException(interfacesTypes[i].getName() + " is not a interface!");
+        }
+        return generate(fullClassName, interfacesTypes);
+    }
+
+    // writes the source straight to the given output, like a file writer, without building a String
+    public void generate(Appendable out, String fullClassName, Class<?>... interfacesTypes) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("null");
+        }
+        generate(out, fullClassName, toInterfaceModels(fullClassName, interfacesTypes));
+    }
+
+    // for interfaces loaded by another class loader, like the one of a build
+    public String generate(String fullClassName, Class<?>... interfacesTypes) throws IOException {
+        return generate(fullClassName, toInterfaceModels(fullClassName, interfacesTypes));
+    }
+
+    // the interfaces come from reflection or, in MulticasterProcessor, from the compiler
+    void generate(Appendable out, String fullClassName, TypeModel[] interfacesTypes) throws IOException {
+        Set<String> imports = new TreeSet<>();
+        List<DispatchedMethod> methods = getDispatchedMethods(interfacesTypes);
+        Map<String, CharSequence> values = new HashMap<>();
+        values.put(TAG_CLASS_PACKAGE, generatePackage(fullClassName));
+        values.put(TAG_CLASS_NAME, generateClassName(fullClassName));
+        values.put(TAG_INTERFACES_NAMES, generateImplements(interfacesTypes));
+        values.put(TAG_PARALLEL_THRESHOLD, String.valueOf(parallelThreshold));
+        values.put(TAG_MULTICASTER_METHODS, generateMulticasterMethods(interfacesTypes));
+        values.put(TAG_INTERFACES_METHODS, generateInterfaceMethods(methods, imports));
+        values.put(TAG_ASYNC_DISPATCH, generateAsyncDispatch(imports));
+        values.put(TAG_CLASS_MEMBERS, generateClassMembers(methods, imports, values));
+        values.put(TAG_CLASS_IMPORTS, generateImports(interfacesTypes, imports));
+        StringBuilder text = buffer;
+        text.setLength(0);
+        Template.load(mode.getTemplate()).render(values, text);
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        out.append(text, start, end);
+    }
+
+    String generate(String fullClassName, TypeModel[] interfacesTypes) throws IOException {
+        StringBuilder text = new StringBuilder(buffer.capacity());
+        generate(text, fullClassName, interfacesTypes);
+        return text.toString();
+    }
+
+    public MulticasterMode getMode() {
+        return mode;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public ResultReducer getResultReducer(String methodName) {
+        return resultReducers.get(methodName);
+    }
+
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    public boolean isCompletionSignalling() {
+        return completionSignalling;
+    }
+
+    public boolean isHolder() {
+        return holder;
+    }
+
+    public boolean isJfrEvents() {
+        return jfrEvents;
+    }
+
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    public boolean isRingDispatcher() {
+        return ringDispatcher;
+    }
+
+    public boolean isSharedMemoryBridge() {
+        return sharedMemoryBridge;
+    }
+
+    public boolean isStripedHolder() {
+        return stripedHolder;
+    }
+
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    public void setCompletionSignalling(boolean completionSignalling) {
+        this.completionSignalling = completionSignalling;
+    }
+
+    public void setHolder(boolean holder) {
+        this.holder = holder;
+    }
+
+    public void setJfrEvents(boolean jfrEvents) {
+        this.jfrEvents = jfrEvents;
+    }
+
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setMode(MulticasterMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("null");
+        }
+        this.mode = mode;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("The parallel threshold must be at least 1!");
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public void setResultReducer(String methodName, ResultReducer resultReducer) {
+        if (methodName == null) {
+            throw new IllegalArgumentException("null");
+        }
+        if (resultReducer == null) {
+            resultReducers.remove(methodName);
+        } else {
+            resultReducers.put(methodName, resultReducer);
+        }
+    }
+
+    public void setRingDispatcher(boolean ringDispatcher) {
+        this.ringDispatcher = ringDispatcher;
+    }
+
+    public void setSharedMemoryBridge(boolean sharedMemoryBridge) {
+        this.sharedMemoryBridge = sharedMemoryBridge;
+    }
+
+    public void setStripedHolder(boolean stripedHolder) {
+        this.stripedHolder = stripedHolder;
+    }
+
+    private String generateAsyncDispatch(Set<String> imports) {
+        StringBuilder text = new StringBuilder();
+        if (mode == MulticasterMode.ASYNC && completionSignalling) {
+            imports.add("java.util.concurrent.CompletableFuture");
+            text.append("    // completion of the last dispatch made by each producer thread\n");
+            text.append("    private static final ThreadLocal<CompletableFuture<Void>> COMPLETION = new ThreadLocal<>();\n\n");
+            text.append("    public static CompletableFuture<Void> completion() {\n");
+            text.append("        CompletableFuture<Void> completion = COMPLETION.get();\n");
+            text.append("        return completion != null ? completion : CompletableFuture.completedFuture(null);\n");
+            text.append("    }\n\n");
+            text.append("    private void dispatch(Consumer<Object> call) {\n");
+            text.append("        Object[] listeners = this.listeners;\n");
+            text.append("        Executor executor = getExecutor();\n");
+            text.append("        CompletableFuture<?>[] futures = new CompletableFuture<?>[listeners.length];\n");
+            text.append("        for (int i = 0; i < listeners.length; i++) {\n");
+            text.append("            Object listener = listeners[i];\n");
+            text.append("            futures[i] = CompletableFuture.runAsync(() -> call.accept(listener), executor);\n");
+            text.append("        }\n");
+            text.append("        COMPLETION.set(CompletableFuture.allOf(futures));\n");
+            text.append("    }");
+        } else {
+            text.append("    private void dispatch(Consumer<Object> call) {\n");
+            text.append("        Object[] listeners = this.listeners;\n");
+            text.append("        Executor executor = getExecutor();\n");
+            text.append("        for (int i = 0; i < listeners.length; i++) {\n");
+            text.append("            Object listener = listeners[i];\n");
+            text.append("            executor.execute(() -> call.accept(listener));\n");
+            text.append("        }\n");
+            text.append("    }");
+        }
+        return text.toString();
+    }
+
+    // primitives are read back in place, enums by the type of their parameter, any other type carries a tag
+    private String generateBridgeDecoders(List<DispatchedMethod> methods) {
+        StringBuilder text = new StringBuilder();
+        text.append("            switch (method) {\n");
+        for (DispatchedMethod dispatched : methods) {
+            text.append("                case ").append(dispatched.id).append(":\n");
+            TypeModel[] params = dispatched.method.getParameterTypes();
+            for (int p = 0; p < params.length; p++) {
+                text.append("                    arguments[").append(p).append("] = ");
+                if (params[p].is(boolean.class)) {
+                    text.append("in.get() != 0");
+                } else if (params[p].is(byte.class)) {
+                    text.append("in.get()");
+                } else if (params[p].isPrimitive()) {
+                    text.append("in.get").append(getPrimitiveSuffix(params[p])).append("()");
+                } else if (params[p].isEnum()) {
+                    text.append("decodeEnum(in, ").append(params[p].getSimpleName()).append(".class)");
+                } else {
+                    text.append("decodeValue(in)");
+                }
+                text.append(";\n");
             }
+            text.append("                    break;\n");
         }
-        String javaCode = loadTemplate();
-        javaCode = javaCode.replace(TAG_CLASS_PACKAGE, generatePackage(fullClassName));
-        javaCode = javaCode.replace(TAG_CLASS_IMPORTS, generateImports(interfacesTypes));
-        javaCode = javaCode.replace(TAG_CLASS_NAME, generateClassName(fullClassName));
-        javaCode = javaCode.replace(TAG_INTERFACES_NAMES, generateImplements(interfacesTypes));
-        javaCode = javaCode.replace(TAG_MULTICASTER_METHODS, generateMulticasterMethods(interfacesTypes));
-        javaCode = javaCode.replace(TAG_INTERFACES_METHODS, generateInterfaceMethods(interfacesTypes));
-        return javaCode.trim();
+        text.append("                default:\n");
+        text.append("                    throw new IllegalStateException(\"Unknown method: \" + method);\n");
+        text.append("            }");
+        return text.toString();
+    }
+
+    private String generateBridgeMethods(List<DispatchedMethod> methods) {
+        StringBuilder text = new StringBuilder();
+        for (DispatchedMethod dispatched : methods) {
+            if (!dispatched.method.getReturnType().is(void.class)) {
+                throw new IllegalArgumentException(dispatched.method.getName() + " returns a value and cannot be sent to another process!");
+            }
+            StringBuilder body = new StringBuilder();
+            body.append("            synchronized (this) {\n");
+            body.append("                begin(").append(dispatched.id).append(");\n");
+            String[] names = getParameterNames(dispatched.method).split(", ");
+            TypeModel[] params = dispatched.method.getParameterTypes();
+            for (int p = 0; p < params.length; p++) {
+                String encoder = params[p].isPrimitive() ? getPrimitiveSuffix(params[p]) : params[p].isEnum() ? "Enum" : "Value";
+                if (encoder.equals("Value") && !isBridgeType(params[p])) {
+                    throw new IllegalArgumentException(dispatched.method.getName() + " has a " + params[p].getName() + " parameter that cannot be sent to another process!");
+                }
+                body.append("                encode").append(encoder).append("(").append(names[p]).append(");\n");
+            }
+            body.append("                publish();\n");
+            body.append("            }\n");
+            text.append(text.length() > 0 ? "\n\n" : "").append(generateRecordingMethod(dispatched, body.toString()));
+        }
+        return text.toString();
+    }
+
+    // both sides of a shared ring must agree on the method ids and their parameters
+    private String generateBridgeSignature(List<DispatchedMethod> methods) {
+        StringBuilder signature = new StringBuilder();
+        for (DispatchedMethod dispatched : methods) {
+            signature.append(dispatched.interfaceName).append('.').append(dispatched.method.getSignature()).append(';');
+        }
+        return String.valueOf(signature.toString().hashCode());
+    }
+
+    // the fragments are rendered with the values of the class, plus their own tags
+    private String generateClassMembers(List<DispatchedMethod> methods, Set<String> imports, Map<String, CharSequence> values) throws IOException {
+        StringBuilder text = new StringBuilder();
+        text.append("\n\n").append(generateSnapshotMethods(values.get(TAG_CLASS_NAME).toString(), imports));
+        if (coalescing || metrics || sharedMemoryBridge || mode == MulticasterMode.SELECTIVE) {
+            text.append("\n\n").append(generateMethodTable(methods));
+        }
+        if (coalescing) {
+            Map<String, CharSequence> fragmentValues = new HashMap<>(values);
+            fragmentValues.put(TAG_COALESCER_METHODS, generateCoalescerMethods(methods));
+            renderFragment("coalescer.template", fragmentValues, imports, text.append("\n\n"));
+        }
+        if (holder) {
+            Map<String, CharSequence> fragmentValues = new HashMap<>(values);
+            fragmentValues.put(TAG_HOLDER_METHODS, generateHolderMethods(false));
+            renderFragment("holder.template", fragmentValues, imports, text.append("\n\n"));
+        }
+        if (stripedHolder) {
+            Map<String, CharSequence> fragmentValues = new HashMap<>(values);
+            fragmentValues.put(TAG_STRIPED_HOLDER_METHODS, generateHolderMethods(true));
+            renderFragment("striped-holder.template", fragmentValues, imports, text.append("\n\n"));
+        }
+        if (metrics) {
+            renderFragment("metrics.template", values, imports, text.append("\n\n"));
+        }
+        if (jfrEvents) {
+            renderFragment("jfr-events.template", values, imports, text.append("\n\n"));
+        }
+        int arity = 0;
+        int primitives = 0;
+        for (DispatchedMethod dispatched : methods) {
+            arity = Math.max(arity, dispatched.method.getParameterCount());
+            int count = 0;
+            for (TypeModel type : dispatched.method.getParameterTypes()) {
+                count += type.isPrimitive() ? 1 : 0;
+            }
+            primitives = Math.max(primitives, count);
+        }
+        if (ringDispatcher) {
+            int references = 0;
+            for (DispatchedMethod dispatched : methods) {
+                int count = 0;
+                for (TypeModel type : dispatched.method.getParameterTypes()) {
+                    count += type.isPrimitive() ? 0 : 1;
+                }
+                references = Math.max(references, count);
+            }
+            Map<String, CharSequence> fragmentValues = new HashMap<>(values);
+            fragmentValues.put(TAG_RING_PRIMITIVES, String.valueOf(primitives));
+            fragmentValues.put(TAG_RING_REFERENCES, String.valueOf(references));
+            fragmentValues.put(TAG_RING_METHODS, generateRingMethods(methods));
+            renderFragment("ring-dispatcher.template", fragmentValues, imports, text.append("\n\n"));
+        }
+        if (sharedMemoryBridge) {
+            Map<String, CharSequence> fragmentValues = new HashMap<>(values);
+            fragmentValues.put(TAG_BRIDGE_ARITY, String.valueOf(arity));
+            fragmentValues.put(TAG_BRIDGE_DECODERS, generateBridgeDecoders(methods));
+            fragmentValues.put(TAG_BRIDGE_METHODS, generateBridgeMethods(methods));
+            fragmentValues.put(TAG_BRIDGE_SIGNATURE, generateBridgeSignature(methods));
+            renderFragment("shared-memory-bridge.template", fragmentValues, imports, text.append("\n\n"));
+        }
+        return text.toString();
     }
 
     private String generateClassName(String fullClassName) {
@@ -57,7 +404,161 @@ public class MulticasterGenerator {
         return fullClassName;
     }
 
-    private String generateImplements(Class<?>[] interfacesTypes) {
+    private String generateCoalescerMethods(List<DispatchedMethod> methods) {
+        StringBuilder text = new StringBuilder();
+        for (DispatchedMethod dispatched : methods) {
+            String body = "            enqueue(" + dispatched.id + ", new Object[] { " + getParameterNames(dispatched.method) + " });\n";
+            text.append(text.length() > 0 ? "\n\n" : "").append(generateRecordingMethod(dispatched, body));
+        }
+        return text.toString();
+    }
+
+    // the locals of a dispatch start with $, which no parameter name does, so they never hide a parameter
+    private String generateDispatch(DispatchedMethod dispatched, Set<String> imports) {
+        StringBuilder text = new StringBuilder();
+        MethodModel method = dispatched.method;
+        boolean voidMethod = method.getReturnType().is(void.class);
+        if (mode == MulticasterMode.ASYNC && !voidMethod) {
+            throw new IllegalArgumentException(method.getName() + " returns a value and cannot be dispatched asynchronously!");
+        }
+        // the dispatch helpers of the concurrent modes take the call to make on each listener, a PARALLEL method that
+        // returns a value falls through to the sequential loop below, since its reducer consumes the results in order
+        if (mode == MulticasterMode.ASYNC || (mode == MulticasterMode.PARALLEL && voidMethod)) {
+            if (metrics) {
+                text.append("        Metrics.count(").append(dispatched.id).append(", listeners().length);\n");
+                text.append("        dispatch($listener -> {\n");
+                text.append(generateListenerCall(dispatched, "$listener", "            "));
+                text.append("        });\n");
+            } else {
+                text.append("        dispatch($listener -> ((").append(dispatched.typeName).append(") $listener).").append(method.getName()).append("(");
+                text.append(getParameterNames(method));
+                text.append("));\n");
+            }
+            return text.toString();
+        }
+        if (mode == MulticasterMode.SELECTIVE) {
+            text.append("        Object[] $listeners = listeners(").append(dispatched.id).append(");\n");
+        } else {
+            text.append("        Object[] $listeners = listeners();\n");
+        }
+        if (metrics) {
+            text.append("        Metrics.count(").append(dispatched.id).append(", $listeners.length);\n");
+        }
+        String loop = "        for (int $i = 0; $i < $listeners.length; $i++) {\n";
+        String loopEnd = "        }\n";
+        String indent = "            ";
+        String listener = "$listeners[$i]";
+        if (mode == MulticasterMode.FILTERED) {
+            // the filter of a group is asked once, and its listeners are skipped together when it rejects the call
+            loop = "        Filter[] $filters = this.filters;\n";
+            loop += "        int[] $ends = this.ends;\n";
+            loop += "        Object[] $arguments = null;\n";
+            loop += "        for (int $g = 0, $i = 0; $g < $filters.length; $i = $ends[$g++]) {\n";
+            loop += "            if ($filters[$g] != null) {\n";
+            loop += "                if ($arguments == null) {\n";
+            loop += "                    $arguments = new Object[] {" + (method.getParameterCount() > 0 ? " " + getParameterNames(method) + " " : "") + "};\n";
+            loop += "                }\n";
+            loop += "                if (!$filters[$g].accept(\"" + method.getName() + "\", $arguments)) {\n";
+            loop += "                    continue;\n";
+            loop += "                }\n";
+            loop += "            }\n";
+            loop += "            for (; $i < $ends[$g]; $i++) {\n";
+            loopEnd = "            }\n" + loopEnd;
+            indent += "    ";
+        }
+        if (mode == MulticasterMode.WEAK) {
+            // the listeners are references, a cleared one is skipped until the next purge drops it
+            loop += "            Object $listener = ((Reference<?>) $listeners[$i]).get();\n";
+            loop += "            if ($listener == null) {\n";
+            loop += "                continue;\n";
+            loop += "            }\n";
+            listener = "$listener";
+        }
+        if (voidMethod) {
+            text.append(loop);
+            text.append(generateListenerCall(dispatched, listener, indent));
+            text.append(loopEnd);
+            return text.toString();
+        }
+        TypeModel returnType = method.getReturnType();
+        ResultReducer reducer = getResultReducer(method);
+        if (reducer == ResultReducer.SUM) {
+            text.append("        ").append(returnType.getSimpleName()).append(" $sum = 0;\n");
+        } else if (reducer == ResultReducer.COLLECT) {
+            imports.add("java.util.ArrayList");
+            imports.add("java.util.List");
+            text.append("        List<Object> $results = new ArrayList<>($listeners.length);\n");
+        }
+        text.append(loop);
+        text.append(generateListenerCall(dispatched, listener, indent));
+        switch (reducer) {
+            case ALL_MATCH:
+                // a veto stops the dispatch, the remaining listeners are not called
+                text.append(indent).append("if (").append(returnType.isPrimitive() ? "!$result" : "Boolean.FALSE.equals($result)").append(") {\n");
+                text.append(indent).append("    return false;\n");
+                text.append(indent).append("}\n");
+                break;
+            case ANY_MATCH:
+                text.append(indent).append("if (").append(returnType.isPrimitive() ? "$result" : "Boolean.TRUE.equals($result)").append(") {\n");
+                text.append(indent).append("    return true;\n");
+                text.append(indent).append("}\n");
+                break;
+            case FIRST_NON_NULL:
+                text.append(indent).append("if ($result != null) {\n");
+                text.append(indent).append("    return $result;\n");
+                text.append(indent).append("}\n");
+                break;
+            case SUM:
+                text.append(indent).append("$sum += $result;\n");
+                break;
+            case COLLECT:
+                text.append(indent).append("$results.add($result);\n");
+                break;
+        }
+        text.append(loopEnd);
+        switch (reducer) {
+            case ALL_MATCH:
+                text.append("        return true;\n");
+                break;
+            case ANY_MATCH:
+                text.append("        return false;\n");
+                break;
+            case FIRST_NON_NULL:
+                text.append("        return null;\n");
+                break;
+            case SUM:
+                text.append("        return $sum;\n");
+                break;
+            case COLLECT:
+                text.append("        return $results;\n");
+                break;
+        }
+        return text.toString();
+    }
+
+    // the holders take a priority too when the multicaster does
+    private String generateHolderMethods(boolean striped) {
+        StringBuilder text = new StringBuilder();
+        if (mode == MulticasterMode.PRIORITY || mode == MulticasterMode.FILTERED) {
+            String parameter = mode == MulticasterMode.PRIORITY ? "priority" : "filter";
+            text.append("\n\n");
+            text.append("        public void add(T listenerToAdd, ").append(mode == MulticasterMode.PRIORITY ? "int" : "Filter").append(" ").append(parameter).append(") {\n");
+            if (striped) {
+                text.append("            int index = indexOf(listenerToAdd);\n");
+            }
+            text.append("            while (true) {\n");
+            text.append(striped ? "                Object existing = stripes.get(index);\n" : "                Object existing = listener;\n");
+            text.append("                Object updated = addInternal(existing, listenerToAdd, ").append(parameter).append(");\n");
+            text.append(striped ? "                if (updated == existing || stripes.compareAndSet(index, existing, updated)) {\n" : "                if (updated == existing || LISTENER.compareAndSet(this, existing, updated)) {\n");
+            text.append("                    return;\n");
+            text.append("                }\n");
+            text.append("            }\n");
+            text.append("        }");
+        }
+        return text.toString();
+    }
+
+    private String generateImplements(TypeModel[] interfacesTypes) {
         StringBuilder text = new StringBuilder();
         Set<String> implemented = new TreeSet<>();
         for (int i = 0; i < interfacesTypes.length; i++) {
@@ -72,11 +573,11 @@ public class MulticasterGenerator {
         return text.toString();
     }
 
-    private String generateImports(Class<?>[] interfacesTypes) {
+    private String generateImports(TypeModel[] interfacesTypes, Set<String> extraImports) {
         StringBuilder text = new StringBuilder();
         Set<String> imported = new TreeSet<>();
         for (int i = 0; i < interfacesTypes.length; i++) {
-            Class<?> interfaceType = interfacesTypes[i];
+            TypeModel interfaceType = interfacesTypes[i];
             String name = interfaceType.getName();
             if (imported.add(name)) {
                 if (i > 0) {
@@ -84,8 +585,16 @@ public class MulticasterGenerator {
                 }
                 text.append("import ").append(name).append(";");
             }
-            for (Method method : getMethods(interfaceType)) {
-                for (Class<?> type : method.getParameterTypes()) {
+            for (MethodModel method : interfaceType.getMethods()) {
+                List<TypeModel> types = new ArrayList<>(Arrays.asList(method.getParameterTypes()));
+                types.add(method.getReturnType());
+                for (TypeModel type : types) {
+                    while (type.isArray()) {
+                        type = type.getComponentType();
+                    }
+                    if (type.isPrimitive()) {
+                        continue;
+                    }
                     name = type.getName();
                     if (imported.add(name)) {
                         text.append("\nimport ").append(name).append(";");
@@ -93,11 +602,17 @@ public class MulticasterGenerator {
                 }
             }
         }
+        for (String name : extraImports) {
+            if (imported.add(name)) {
+                text.append("\nimport ").append(name).append(";");
+            }
+        }
         return text.toString();
     }
 
-    private String generateInterfaceMethod(String typeName, Method method) {
+    private String generateInterfaceMethod(DispatchedMethod dispatched, Set<String> imports) {
         StringBuilder text = new StringBuilder();
+        MethodModel method = dispatched.method;
         String methodName = method.getName();
         String returnType = method.getReturnType().getSimpleName();
 
@@ -105,73 +620,219 @@ public class MulticasterGenerator {
         text.append("    public ").append(returnType).append(" ").append(methodName).append("(");
         text.append(getParameterTypesAndNames(method));
         text.append(") {\n");
-
-        for (char variable = 'a'; variable <= 'b'; variable++) {
-            text.append("        ((").append(typeName).append(") ").append(variable).append(").").append(methodName).append("(");
-            text.append(getParameterNames(method));
-            text.append(");\n");
+        if (jfrEvents) {
+            // the event is only started when a recording enables it, and the dispatch is indented into the try block
+            text.append("        DispatchEvent dispatchEvent = new DispatchEvent();\n");
+            text.append("        if (dispatchEvent.isEnabled()) {\n");
+            text.append("            dispatchEvent.begin();\n");
+            text.append("        }\n");
+            text.append("        try {\n");
+            for (String line : generateDispatch(dispatched, imports).split("\n")) {
+                text.append(line.isEmpty() ? "" : "    ").append(line).append("\n");
+            }
+            text.append("        } finally {\n");
+            text.append("            dispatchEvent.record(\"").append(dispatched.interfaceName).append("\", \"").append(methodName).append("\", this);\n");
+            text.append("        }\n");
+        } else {
+            text.append(generateDispatch(dispatched, imports));
         }
         text.append("    }");
         return text.toString();
     }
 
-    private String generateInterfaceMethods(Class<?>[] interfacesTypes) {
+    private String generateInterfaceMethods(List<DispatchedMethod> methods, Set<String> imports) {
         StringBuilder text = new StringBuilder();
-        Set<String> declared = new TreeSet<>();
-        for (int i = 0; i < interfacesTypes.length; i++) {
-            Class<?> interfaceType = interfacesTypes[i];
-            String typeName = interfaceType.getSimpleName();
-            Method[] methods = getMethods(interfaceType);
-            for (int m = 0; m < methods.length; m++) {
-                String method = generateInterfaceMethod(typeName, methods[m]);
-                if (declared.add(method)) {
-                    if (declared.size() > 1) {
-                        text.append("\n\n");
-                    }
-                    text.append(method);
+        for (DispatchedMethod dispatched : methods) {
+            if (text.length() > 0) {
+                text.append("\n\n");
+            }
+            text.append(generateInterfaceMethod(dispatched, imports));
+        }
+        return text.toString();
+    }
+
+    private String generateListenerCall(DispatchedMethod dispatched, String listener, String indent) {
+        StringBuilder text = new StringBuilder();
+        StringBuilder call = new StringBuilder();
+        call.append("((").append(dispatched.typeName).append(") ").append(listener).append(").").append(dispatched.method.getName()).append("(");
+        call.append(getParameterNames(dispatched.method));
+        call.append(");\n");
+        TypeModel returnType = dispatched.method.getReturnType();
+        if (!returnType.is(void.class)) {
+            // the result of each listener is kept for the reducer
+            if (metrics) {
+                text.append(indent).append(returnType.getSimpleName()).append(" $result;\n");
+                call.insert(0, "$result = ");
+            } else {
+                call.insert(0, returnType.getSimpleName() + " $result = ");
+            }
+        }
+        if (metrics) {
+            text.append(indent).append("if (Metrics.sample()) {\n");
+            text.append(indent).append("    long $start = System.nanoTime();\n");
+            text.append(indent).append("    ").append(call);
+            text.append(indent).append("    Metrics.record(").append(dispatched.id).append(", ").append(listener).append(", System.nanoTime() - $start);\n");
+            text.append(indent).append("} else {\n");
+            text.append(indent).append("    ").append(call);
+            text.append(indent).append("}\n");
+        } else {
+            text.append(indent).append(call);
+        }
+        return text.toString();
+    }
+
+    private String generateMethodTable(List<DispatchedMethod> methods) {
+        StringBuilder text = new StringBuilder();
+        text.append("    private static final int METHOD_COUNT = ").append(methods.size()).append(";\n\n");
+        text.append("    private static final String[] METHOD_NAMES = {");
+        for (DispatchedMethod dispatched : methods) {
+            text.append(dispatched.id > 0 ? ", " : " ").append("\"").append(dispatched.method.getName()).append("(");
+            TypeModel[] params = dispatched.method.getParameterTypes();
+            for (int p = 0; p < params.length; p++) {
+                text.append(p > 0 ? ", " : "").append(params[p].getSimpleName());
+            }
+            text.append(")\"");
+        }
+        text.append(" };\n\n");
+        text.append("    private static void invoke(Object listener, int method, Object[] arguments) {\n");
+        text.append("        switch (method) {\n");
+        for (DispatchedMethod dispatched : methods) {
+            MethodModel method = dispatched.method;
+            text.append("            case ").append(dispatched.id).append(":\n");
+            text.append("                ((").append(dispatched.typeName).append(") listener).").append(method.getName()).append("(");
+            TypeModel[] params = method.getParameterTypes();
+            for (int p = 0; p < params.length; p++) {
+                if (p > 0) {
+                    text.append(", ");
                 }
+                text.append("(").append(getBoxedTypeName(params[p])).append(") arguments[").append(p).append("]");
             }
+            text.append(");\n");
+            text.append("                break;\n");
         }
+        text.append("            default:\n");
+        text.append("                throw new IllegalArgumentException(\"Unknown method: \" + method);\n");
+        text.append("        }\n");
+        text.append("    }");
         return text.toString();
     }
 
-    private String generateMulticasterMethodAdd(Class<?> interfaceType) {
+    private String generateMulticasterMethodAdd(TypeModel interfaceType) {
         String name = interfaceType.getSimpleName();
         StringBuilder text = new StringBuilder();
         text.append("    public static ").append(name).append(" add").append("(").append(name).append(" existing").append(name).append(", ").append(name).append(" ").append(toVariableName(name)).append("ToAdd) {\n");
-        text.append("        return (").append(name).append(") addInternal(existing").append(name).append(", ").append(toVariableName(name)).append("ToAdd);\n");
+        text.append(generateRegistration(interfaceType, "add", "addInternal(existing" + name + ", " + toVariableName(name) + "ToAdd)"));
         text.append("    }");
         return text.toString();
     }
 
-    private String generateMulticasterMethodRemove(Class<?> interfaceType) {
+    private String generateMulticasterMethodAddFiltered(TypeModel interfaceType) {
+        String name = interfaceType.getSimpleName();
+        StringBuilder text = new StringBuilder();
+        text.append("    public static ").append(name).append(" add").append("(").append(name).append(" existing").append(name).append(", ").append(name).append(" ").append(toVariableName(name)).append("ToAdd, Filter filter) {\n");
+        text.append(generateRegistration(interfaceType, "add", "addInternal(existing" + name + ", " + toVariableName(name) + "ToAdd, filter)"));
+        text.append("    }");
+        return text.toString();
+    }
+
+    private String generateMulticasterMethodAddPriority(TypeModel interfaceType) {
+        String name = interfaceType.getSimpleName();
+        StringBuilder text = new StringBuilder();
+        text.append("    public static ").append(name).append(" add").append("(").append(name).append(" existing").append(name).append(", ").append(name).append(" ").append(toVariableName(name)).append("ToAdd, int priority) {\n");
+        text.append(generateRegistration(interfaceType, "add", "addInternal(existing" + name + ", " + toVariableName(name) + "ToAdd, priority)"));
+        text.append("    }");
+        return text.toString();
+    }
+
+    private String generateMulticasterMethodAddSelected(TypeModel interfaceType) {
+        String name = interfaceType.getSimpleName();
+        StringBuilder text = new StringBuilder();
+        text.append("    public static ").append(name).append(" add").append("(").append(name).append(" existing").append(name).append(", ").append(name).append(" ").append(toVariableName(name)).append("ToAdd, String... methodNames) {\n");
+        text.append(generateRegistration(interfaceType, "add", "addInternal(existing" + name + ", " + toVariableName(name) + "ToAdd, selectMethods(methodNames))"));
+        text.append("    }");
+        return text.toString();
+    }
+
+    private String generateMulticasterMethodContains(TypeModel interfaceType) {
+        String name = interfaceType.getSimpleName();
+        StringBuilder text = new StringBuilder();
+        text.append("    public static boolean contains").append("(").append(name).append(" existing").append(name).append(", ").append(name).append(" ").append(toVariableName(name)).append(") {\n");
+        text.append("        return containsInternal(existing").append(name).append(", ").append(toVariableName(name)).append(");\n");
+        text.append("    }");
+        return text.toString();
+    }
+
+    private String generateMulticasterMethodForEach(TypeModel interfaceType) {
+        String name = interfaceType.getSimpleName();
+        StringBuilder text = new StringBuilder();
+        text.append("    public static void forEach").append("(").append(name).append(" existing").append(name).append(", Consumer<? super ").append(name).append("> action) {\n");
+        text.append("        forEachInternal(existing").append(name).append(", action);\n");
+        text.append("    }");
+        return text.toString();
+    }
+
+    private String generateMulticasterMethodRemove(TypeModel interfaceType) {
         String name = interfaceType.getSimpleName();
         StringBuilder text = new StringBuilder();
         text.append("    public static ").append(name).append(" remove").append("(").append(name).append(" existing").append(name).append(", ").append(name).append(" ").append(toVariableName(name)).append("ToRemove) {\n");
-        text.append("        return (").append(name).append(") removeInternal(existing").append(name).append(", ").append(toVariableName(name)).append("ToRemove);\n");
+        text.append(generateRegistration(interfaceType, "remove", "removeInternal(existing" + name + ", " + toVariableName(name) + "ToRemove)"));
         text.append("    }");
         return text.toString();
     }
 
-    private CharSequence generateMulticasterMethods(Class<?>[] interfacesTypes) {
+    private String generateMulticasterMethodSize(TypeModel interfaceType) {
+        String name = interfaceType.getSimpleName();
         StringBuilder text = new StringBuilder();
-        Set<String> declared = new TreeSet<>();
-        for (int i = 0; i < interfacesTypes.length; i++) {
-            Class<?> interfaceType = interfacesTypes[i];
-            String method = generateMulticasterMethodAdd(interfaceType);
-            if (declared.add(method)) {
-                if (declared.size() > 1) {
-                    text.append("\n\n");
-                }
-                text.append(method);
-                text.append("\n");
+        text.append("    public static int size").append("(").append(name).append(" existing").append(name).append(") {\n");
+        text.append("        return sizeInternal(existing").append(name).append(");\n");
+        text.append("    }");
+        return text.toString();
+    }
+
+    private String generateMulticasterMethodToArray(TypeModel interfaceType) {
+        String name = interfaceType.getSimpleName();
+        StringBuilder text = new StringBuilder();
+        text.append("    public static ").append(name).append("[] toArray").append("(").append(name).append(" existing").append(name).append(") {\n");
+        text.append("        return toArrayInternal(existing").append(name).append(", new ").append(name).append("[0]);\n");
+        text.append("    }");
+        return text.toString();
+    }
+
+    // interfaces with the same simple name would get the same methods, so only the first one declares them
+    private CharSequence generateMulticasterMethods(TypeModel[] interfacesTypes) {
+        StringBuilder text = new StringBuilder();
+        Set<String> declared = new HashSet<>();
+        for (TypeModel interfaceType : interfacesTypes) {
+            if (!declared.add(interfaceType.getSimpleName())) {
+                continue;
             }
-            method = generateMulticasterMethodRemove(interfaceType);
-            if (declared.add(method)) {
-                if (declared.size() > 1) {
-                    text.append("\n");
-                }
-                text.append(method);
+            if (text.length() > 0) {
+                text.append("\n\n");
+            }
+            text.append(generateMulticasterMethodAdd(interfaceType));
+            text.append("\n\n");
+            text.append(generateMulticasterMethodRemove(interfaceType));
+            text.append("\n\n");
+            text.append(generateMulticasterMethodSize(interfaceType));
+            text.append("\n\n");
+            text.append(generateMulticasterMethodForEach(interfaceType));
+            text.append("\n\n");
+            text.append(generateMulticasterMethodToArray(interfaceType));
+            if (mode == MulticasterMode.SELECTIVE) {
+                text.append("\n\n");
+                text.append(generateMulticasterMethodAddSelected(interfaceType));
+            }
+            if (mode == MulticasterMode.INDEXED) {
+                text.append("\n\n");
+                text.append(generateMulticasterMethodContains(interfaceType));
+            }
+            if (mode == MulticasterMode.PRIORITY) {
+                text.append("\n\n");
+                text.append(generateMulticasterMethodAddPriority(interfaceType));
+            }
+            if (mode == MulticasterMode.FILTERED) {
+                text.append("\n\n");
+                text.append(generateMulticasterMethodAddFiltered(interfaceType));
             }
         }
         return text.toString();
@@ -186,33 +847,213 @@ public class MulticasterGenerator {
         return packageDeclaration.toString();
     }
 
-    private Method[] getMethods(Class<?> type) {
+    // a void method runs the given body, other methods are forwarded to the current target on the calling thread
+    private String generateRecordingMethod(DispatchedMethod dispatched, String voidBody) {
+        StringBuilder text = new StringBuilder();
+        MethodModel method = dispatched.method;
+        text.append("        @Override\n");
+        text.append("        public ").append(method.getReturnType().getSimpleName()).append(" ").append(method.getName()).append("(");
+        text.append(getParameterTypesAndNames(method));
+        text.append(") {\n");
+        if (method.getReturnType().is(void.class)) {
+            text.append(voidBody);
+        } else {
+            text.append("            return ((").append(dispatched.typeName).append(") target()).").append(method.getName()).append("(").append(getParameterNames(method)).append(");\n");
+        }
+        text.append("        }");
+        return text.toString();
+    }
+
+    // with JFR events the static add and remove are timed around the internal call
+    private String generateRegistration(TypeModel interfaceType, String operation, String call) {
+        String name = interfaceType.getSimpleName();
+        StringBuilder text = new StringBuilder();
+        if (jfrEvents) {
+            text.append("        RegistrationEvent registrationEvent = new RegistrationEvent();\n");
+            text.append("        if (registrationEvent.isEnabled()) {\n");
+            text.append("            registrationEvent.begin();\n");
+            text.append("        }\n");
+            text.append("        return (").append(name).append(") registrationEvent.record(\"").append(interfaceType.getName()).append("\", \"").append(operation).append("\", ").append(call).append(");\n");
+        } else {
+            text.append("        return (").append(name).append(") ").append(call).append(";\n");
+        }
+        return text.toString();
+    }
+
+    // primitives are kept in a row of longs and references in a row of objects, so recording a call boxes and allocates nothing
+    private String generateRingMethods(List<DispatchedMethod> methods) {
+        StringBuilder text = new StringBuilder();
+        text.append("        private static void replay(Object listener, int method, long[] primitives, Object[] references) {\n");
+        text.append("            switch (method) {\n");
+        StringBuilder recording = new StringBuilder();
+        for (DispatchedMethod dispatched : methods) {
+            StringBuilder body = new StringBuilder();
+            body.append("            int $index = claim(").append(dispatched.id).append(");\n");
+            body.append("            if ($index >= 0) {\n");
+            StringBuilder arguments = new StringBuilder();
+            String[] names = getParameterNames(dispatched.method).split(", ");
+            TypeModel[] params = dispatched.method.getParameterTypes();
+            int primitive = 0;
+            int reference = 0;
+            for (int p = 0; p < params.length; p++) {
+                if (p > 0) {
+                    arguments.append(", ");
+                }
+                if (params[p].isPrimitive()) {
+                    body.append("                this.primitives[$index][").append(primitive).append("] = ").append(getRingEncoding(params[p], names[p])).append(";\n");
+                    arguments.append(getRingDecoding(params[p], "primitives[" + primitive++ + "]"));
+                } else {
+                    body.append("                this.references[$index][").append(reference).append("] = ").append(names[p]).append(";\n");
+                    arguments.append("(").append(params[p].getSimpleName()).append(") references[").append(reference++).append("]");
+                }
+            }
+            body.append("                publish();\n");
+            body.append("            }\n");
+            recording.append("\n\n").append(generateRecordingMethod(dispatched, body.toString()));
+            if (dispatched.method.getReturnType().is(void.class)) {
+                text.append("                case ").append(dispatched.id).append(":\n");
+                text.append("                    ((").append(dispatched.typeName).append(") listener).").append(dispatched.method.getName()).append("(").append(arguments).append(");\n");
+                text.append("                    break;\n");
+            }
+        }
+        text.append("                default:\n");
+        text.append("                    throw new IllegalArgumentException(\"Unknown method: \" + method);\n");
+        text.append("            }\n");
+        text.append("        }");
+        return text.append(recording).toString();
+    }
+
+    // size, forEach and toArray read the listeners the dispatch uses, so none of them walks or copies a multicaster again
+    private String generateSnapshotMethods(String className, Set<String> imports) {
+        imports.add("java.util.Arrays");
+        imports.add("java.util.function.Consumer");
+        String listener = "listeners[i]";
+        StringBuilder text = new StringBuilder();
+        text.append("    private static int sizeInternal(Object existingObject) {\n");
+        text.append("        if (existingObject instanceof ").append(className).append(") {\n");
+        text.append("            return ((").append(className).append(") existingObject).listenerCount();\n");
+        text.append("        }\n");
+        text.append("        return existingObject == null ? 0 : 1;\n");
+        text.append("    }\n\n");
+        text.append("    @SuppressWarnings(\"unchecked\")\n");
+        text.append("    private static <T> void forEachInternal(Object existingObject, Consumer<? super T> action) {\n");
+        text.append("        if (action == null) {\n");
+        text.append("            throw new IllegalArgumentException(\"null\");\n");
+        text.append("        }\n");
+        text.append("        if (existingObject instanceof ").append(className).append(") {\n");
+        text.append("            Object[] listeners = ((").append(className).append(") existingObject).listeners();\n");
+        text.append("            for (int i = 0; i < listeners.length; i++) {\n");
+        if (mode == MulticasterMode.WEAK) {
+            text.append("                Object listener = ((Reference<?>) listeners[i]).get();\n");
+            text.append("                if (listener == null) {\n");
+            text.append("                    continue;\n");
+            text.append("                }\n");
+            listener = "listener";
+        }
+        text.append("                action.accept((T) ").append(listener).append(");\n");
+        text.append("            }\n");
+        text.append("        } else if (existingObject != null) {\n");
+        text.append("            action.accept((T) existingObject);\n");
+        text.append("        }\n");
+        text.append("    }\n\n");
+        text.append("    @SuppressWarnings(\"unchecked\")\n");
+        text.append("    private static <T> T[] toArrayInternal(Object existingObject, T[] empty) {\n");
+        text.append("        if (existingObject instanceof ").append(className).append(") {\n");
+        text.append("            Object[] listeners = ((").append(className).append(") existingObject).listeners();\n");
+        if (mode == MulticasterMode.WEAK) {
+            // cleared references are left out, so the copy can be shorter than the multicaster
+            text.append("            T[] array = Arrays.copyOf(empty, listeners.length);\n");
+            text.append("            int count = 0;\n");
+            text.append("            for (int i = 0; i < listeners.length; i++) {\n");
+            text.append("                Object listener = ((Reference<?>) listeners[i]).get();\n");
+            text.append("                if (listener != null) {\n");
+            text.append("                    array[count++] = (T) listener;\n");
+            text.append("                }\n");
+            text.append("            }\n");
+            text.append("            return count < array.length ? Arrays.copyOf(array, count) : array;\n");
+        } else {
+            text.append("            return (T[]) Arrays.copyOf(listeners, listeners.length, empty.getClass());\n");
+        }
+        text.append("        }\n");
+        text.append("        if (existingObject == null) {\n");
+        text.append("            return empty;\n");
+        text.append("        }\n");
+        text.append("        T[] array = Arrays.copyOf(empty, 1);\n");
+        text.append("        array[0] = (T) existingObject;\n");
+        text.append("        return array;\n");
+        text.append("    }");
+        return text.toString();
+    }
+
+    private String getBoxedTypeName(TypeModel type) {
+        if (!type.isPrimitive()) {
+            return type.getSimpleName();
+        }
+        if (type.is(int.class)) {
+            return "Integer";
+        }
+        if (type.is(char.class)) {
+            return "Character";
+        }
+        String name = type.getSimpleName();
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private List<DispatchedMethod> getDispatchedMethods(TypeModel[] interfacesTypes) {
+        List<DispatchedMethod> methods = new ArrayList<>();
+        Set<String> signatures = new HashSet<>();
+        for (TypeModel interfaceType : interfacesTypes) {
+            for (MethodModel method : interfaceType.getMethods()) {
+                if (signatures.add(method.getSignature())) {
+                    methods.add(new DispatchedMethod(methods.size(), interfaceType, method));
+                }
+            }
+        }
+        return methods;
+    }
+
+    static Method[] getMethods(Class<?> type) {
         List<Method> allMethods = new ArrayList<>();
+        getMethods(type, new HashSet<>(), allMethods);
+        return allMethods.toArray(new Method[allMethods.size()]);
+    }
+
+    // an interface inherited through more than one path is visited only once
+    private static void getMethods(Class<?> type, Set<Class<?>> visited, List<Method> allMethods) {
         Class<?> supertype = type;
-        while (supertype != null && !supertype.equals(Object.class)) {
+        while (supertype != null && !supertype.equals(Object.class) && visited.add(supertype)) {
             for (Method method : supertype.getDeclaredMethods()) {
                 if (Modifier.isAbstract(method.getModifiers())) {
                     allMethods.add(method);
                 }
             }
             for (Class<?> itf : supertype.getInterfaces()) {
-                allMethods.addAll(Arrays.asList(getMethods(itf)));
+                getMethods(itf, visited, allMethods);
             }
             supertype = supertype.getSuperclass();
         }
-        return allMethods.toArray(new Method[allMethods.size()]);
     }
 
-    private String getParameterNames(Method method) {
+    // primitive and array types are not valid names on their own
+    private String getParameterName(TypeModel type) {
+        if (type.isArray()) {
+            return getParameterName(type.getComponentType()) + "s";
+        }
+        if (type.isPrimitive()) {
+            return type.getSimpleName() + "Value";
+        }
+        return toVariableName(type.getSimpleName());
+    }
+
+    private String getParameterNames(MethodModel method) {
         StringBuilder text = new StringBuilder();
-        Class<?>[] params = method.getParameterTypes();
+        TypeModel[] params = method.getParameterTypes();
         for (int p = 0; p < params.length; p++) {
-            Class<?> type = params[p];
+            TypeModel type = params[p];
             if (p > 0) {
                 text.append(", ");
             }
-            String typeName = type.getSimpleName();
-            text.append(toVariableName(typeName));
+            text.append(getParameterName(type));
             if (params.length > 1) {
                 text.append(p + 1);
             }
@@ -220,17 +1061,15 @@ public class MulticasterGenerator {
         return text.toString();
     }
 
-    private String getParameterTypesAndNames(Method method) {
+    private String getParameterTypesAndNames(MethodModel method) {
         StringBuilder text = new StringBuilder();
-        Class<?>[] params = method.getParameterTypes();
+        TypeModel[] params = method.getParameterTypes();
         for (int p = 0; p < params.length; p++) {
-            Class<?> type = params[p];
+            TypeModel type = params[p];
             if (p > 0) {
                 text.append(", ");
             }
-            String typeName = type.getSimpleName();
-            String paramName = toVariableName(typeName);
-            text.append(typeName).append(" ").append(paramName);
+            text.append(type.getSimpleName()).append(" ").append(getParameterName(type));
             if (params.length > 1) {
                 text.append(p + 1);
             }
@@ -238,14 +1077,84 @@ public class MulticasterGenerator {
         return text.toString();
     }
 
-    private String loadTemplate() throws IOException {
-        Class<? extends MulticasterGenerator> type = getClass();
-        String file = "/" + type.getPackage().getName().replace('.', '/') + "/multicaster.template";
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        InputStream in = type.getResourceAsStream(file);
-        byte[] buffer = new byte[4096];
-        for (int read = -1; (read = in.read(buffer)) != -1; out.write(buffer, 0, read)) {}
-        return new String(out.toByteArray());
+    // the suffix of the ByteBuffer accessors of a primitive, like Int for getInt and putInt
+    private String getPrimitiveSuffix(TypeModel type) {
+        String name = type.getSimpleName();
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private ResultReducer getResultReducer(MethodModel method) {
+        TypeModel returnType = method.getReturnType();
+        ResultReducer reducer = resultReducers.get(method.getName());
+        if (reducer == null) {
+            reducer = ResultReducer.defaultFor(returnType);
+        }
+        if (!reducer.accepts(returnType)) {
+            throw new IllegalArgumentException(method.getName() + " returns " + returnType.getSimpleName() + " and cannot be reduced with " + reducer + "!");
+        }
+        return reducer;
+    }
+
+    private String getRingDecoding(TypeModel type, String value) {
+        if (type.is(boolean.class)) {
+            return value + " != 0";
+        }
+        if (type.is(float.class)) {
+            return "Float.intBitsToFloat((int) " + value + ")";
+        }
+        if (type.is(double.class)) {
+            return "Double.longBitsToDouble(" + value + ")";
+        }
+        return type.is(long.class) ? value : "(" + type.getSimpleName() + ") " + value;
+    }
+
+    // every primitive fits a long, floating point values keep their bits
+    private String getRingEncoding(TypeModel type, String value) {
+        if (type.is(boolean.class)) {
+            return value + " ? 1L : 0L";
+        }
+        if (type.is(float.class)) {
+            return "Float.floatToRawIntBits(" + value + ")";
+        }
+        if (type.is(double.class)) {
+            return "Double.doubleToRawLongBits(" + value + ")";
+        }
+        return value;
+    }
+
+    // the types the shared memory bridge encodes with a tag, primitives and enums have encoders of their own
+    private boolean isBridgeType(TypeModel type) {
+        for (Class<?> bridgeType : BRIDGE_TYPES) {
+            if (type.is(bridgeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the imports of a fragment are moved to the imports of the generated class
+    private void renderFragment(String name, Map<String, CharSequence> values, Set<String> imports, StringBuilder out) throws IOException {
+        Template fragment = Template.load(name);
+        imports.addAll(fragment.getImports());
+        fragment.render(values, out);
+    }
+
+    private TypeModel[] toInterfaceModels(String fullClassName, Class<?>[] interfacesTypes) {
+        if (fullClassName == null || interfacesTypes == null) {
+            throw new IllegalArgumentException("null");
+        }
+        int count = interfacesTypes.length;
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one interface must be specified!");
+        }
+        TypeModel[] models = new TypeModel[count];
+        for (int i = 0; i < count; i++) {
+            if (!interfacesTypes[i].isInterface()) {
+                throw new IllegalArgumentException(interfacesTypes[i].getName() + " is not a interface!");
+            }
+            models[i] = TypeModel.ofInterface(interfacesTypes[i]);
+        }
+        return models;
     }
 
     private String toVariableName(String typeName) {
@@ -0,0 +1,360 @@
+package br.com.staroski.multicaster;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// generates the multicasters of every public interface of jars and class folders that matches a pattern
+public class MulticasterGeneratorCLI {
+
+    private static final String USAGE = String.join("\n", //
+            "Usage: java br.com.staroski.multicaster.MulticasterGeneratorCLI [options] <jar or directory>...", //
+            "", //
+            "  -d <directory>                where the sources are written, the current directory by default", //
+            "  -cp <path>                    class path of the dependencies of the scanned classes", //
+            "  -i <pattern>                  interfaces to generate, * matches a name and ** a name with its packages,", //
+            "                                may be repeated, **Listener by default", //
+            "  -p <package>                  package of the generated classes, the one of each interface by default", //
+            "  -s <suffix>                   suffix of the generated class names, Multicaster by default", //
+            "  -m <mode>                     one of TREE, ARRAY, INDEXED, ASYNC, PARALLEL, WEAK, SELECTIVE, PRIORITY or FILTERED", //
+            "  -j <threads>                  generation threads, the available processors by default", //
+            "  --completion-signalling", //
+            "  --coalescing", //
+            "  --holder", //
+            "  --jfr-events", //
+            "  --metrics", //
+            "  --ring-dispatcher", //
+            "  --shared-memory-bridge", //
+            "  --striped-holder", //
+            "  --parallel-threshold <size>", //
+            "  --reducer <method>=<reducer>  may be repeated");
+
+    public static void main(String[] args) {
+        try {
+            new MulticasterGeneratorCLI(args).run();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (Throwable t) {
+            t.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private final List<Path> inputs = new ArrayList<>();
+    private final List<Path> classpath = new ArrayList<>();
+    private final List<Pattern> patterns = new ArrayList<>();
+    private Path outputDirectory = Paths.get(".");
+    private String targetPackage;
+    private String classSuffix = "Multicaster";
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private MulticasterMode mode = MulticasterMode.TREE;
+    private boolean completionSignalling;
+    private boolean coalescing;
+    private boolean holder;
+    private boolean jfrEvents;
+    private boolean metrics;
+    private boolean ringDispatcher;
+    private boolean sharedMemoryBridge;
+    private boolean stripedHolder;
+    private int parallelThreshold = 1024;
+    private final Map<String, ResultReducer> resultReducers = new HashMap<>();
+
+    // a generator reuses its buffer, so each thread of the pool gets its own
+    private final ThreadLocal<MulticasterGenerator> generators = ThreadLocal.withInitial(this::createGenerator);
+
+    private MulticasterGeneratorCLI(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-d":
+                    outputDirectory = Paths.get(valueOf(args, ++i, arg));
+                    break;
+                case "-cp":
+                    for (String element : valueOf(args, ++i, arg).split(File.pathSeparator)) {
+                        if (!element.isEmpty()) {
+                            classpath.add(Paths.get(element));
+                        }
+                    }
+                    break;
+                case "-i":
+                    patterns.add(toPattern(valueOf(args, ++i, arg)));
+                    break;
+                case "-p":
+                    targetPackage = valueOf(args, ++i, arg);
+                    break;
+                case "-s":
+                    classSuffix = valueOf(args, ++i, arg);
+                    break;
+                case "-m":
+                    mode = MulticasterMode.valueOf(valueOf(args, ++i, arg).toUpperCase());
+                    break;
+                case "-j":
+                    parallelism = Integer.parseInt(valueOf(args, ++i, arg));
+                    if (parallelism < 1) {
+                        throw new IllegalArgumentException("At least one thread is needed!");
+                    }
+                    break;
+                case "--completion-signalling":
+                    completionSignalling = true;
+                    break;
+                case "--coalescing":
+                    coalescing = true;
+                    break;
+                case "--holder":
+                    holder = true;
+                    break;
+                case "--jfr-events":
+                    jfrEvents = true;
+                    break;
+                case "--metrics":
+                    metrics = true;
+                    break;
+                case "--ring-dispatcher":
+                    ringDispatcher = true;
+                    break;
+                case "--shared-memory-bridge":
+                    sharedMemoryBridge = true;
+                    break;
+                case "--striped-holder":
+                    stripedHolder = true;
+                    break;
+                case "--parallel-threshold":
+                    parallelThreshold = Integer.parseInt(valueOf(args, ++i, arg));
+                    break;
+                case "--reducer":
+                    String reducer = valueOf(args, ++i, arg);
+                    int index = reducer.indexOf('=');
+                    if (index < 1) {
+                        throw new IllegalArgumentException("A reducer is given as <method>=<reducer>!");
+                    }
+                    resultReducers.put(reducer.substring(0, index), ResultReducer.valueOf(reducer.substring(index + 1).toUpperCase()));
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option " + arg + "!");
+                    }
+                    inputs.add(Paths.get(arg));
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("At least one jar or directory must be specified!");
+        }
+        if (patterns.isEmpty()) {
+            patterns.add(toPattern("**Listener"));
+        }
+        createGenerator(); // fails here for invalid options, before anything is scanned
+    }
+
+    private MulticasterGenerator createGenerator() {
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setMode(mode);
+        generator.setCoalescing(coalescing);
+        generator.setCompletionSignalling(completionSignalling);
+        generator.setHolder(holder);
+        generator.setJfrEvents(jfrEvents);
+        generator.setMetrics(metrics);
+        generator.setParallelThreshold(parallelThreshold);
+        generator.setRingDispatcher(ringDispatcher);
+        generator.setSharedMemoryBridge(sharedMemoryBridge);
+        generator.setStripedHolder(stripedHolder);
+        for (Map.Entry<String, ResultReducer> reducer : resultReducers.entrySet()) {
+            generator.setResultReducer(reducer.getKey(), reducer.getValue());
+        }
+        return generator;
+    }
+
+    // returns why the interface was skipped, or null once its multicaster is written
+    private String generate(String name, String fullClassName, ClassLoader loader) {
+        try {
+            Class<?> type = Class.forName(name, false, loader);
+            if (!Modifier.isPublic(type.getModifiers())) {
+                return name + " is not public";
+            }
+            Path file = outputDirectory.resolve(fullClassName.replace('.', '/') + ".java");
+            Files.createDirectories(file.getParent());
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                generators.get().generate(out, fullClassName, type);
+                out.write('\n');
+            }
+            return null;
+        } catch (Exception | LinkageError e) {
+            return name + ": " + e;
+        }
+    }
+
+    private String getFullClassName(String name) {
+        String simpleName = name.substring(name.lastIndexOf('.') + 1);
+        simpleName = simpleName.substring(simpleName.lastIndexOf('$') + 1);
+        String packageName = targetPackage;
+        if (packageName == null) {
+            int index = name.lastIndexOf('.');
+            packageName = index > 0 ? name.substring(0, index) : "";
+        }
+        return packageName.isEmpty() ? simpleName + classSuffix : packageName + "." + simpleName + classSuffix;
+    }
+
+    // the name comes from the path, so only the class files of matching names are read
+    private String getInterfaceName(String path, Callable<InputStream> content) throws Exception {
+        if (!path.endsWith(".class") || path.startsWith("META-INF/") || path.endsWith("module-info.class") || path.endsWith("package-info.class")) {
+            return null;
+        }
+        String name = path.substring(0, path.length() - ".class".length()).replace('/', '.');
+        if (name.matches(".*\\$\\d.*") || !matches(name)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(content.call())) {
+            ClassFileHeader header = ClassFileHeader.read(in);
+            return header.isInterface() && header.isPublic() ? header.getClassName() : null;
+        }
+    }
+
+    private boolean matches(String name) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void run() throws Exception {
+        long start = System.nanoTime();
+        List<URL> urls = new ArrayList<>();
+        for (Path path : inputs) {
+            urls.add(path.toUri().toURL());
+        }
+        for (Path path : classpath) {
+            urls.add(path.toUri().toURL());
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[urls.size()]), getClass().getClassLoader())) {
+            Set<String> names = scan(pool);
+            // two interfaces with the same simple name would write the same file
+            Map<String, String> classNames = new TreeMap<>();
+            List<String> skipped = new ArrayList<>();
+            for (String name : names) {
+                String fullClassName = getFullClassName(name);
+                String previous = classNames.putIfAbsent(fullClassName, name);
+                if (previous != null) {
+                    skipped.add(name + ": " + fullClassName + " is already generated for " + previous);
+                }
+            }
+            List<Callable<String>> tasks = new ArrayList<>();
+            for (Map.Entry<String, String> entry : classNames.entrySet()) {
+                tasks.add(() -> generate(entry.getValue(), entry.getKey(), loader));
+            }
+            int generated = 0;
+            for (Future<String> result : pool.invokeAll(tasks)) {
+                String problem = result.get();
+                if (problem == null) {
+                    generated++;
+                } else {
+                    skipped.add(problem);
+                }
+            }
+            for (String problem : skipped) {
+                System.err.println("Skipped " + problem);
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Generated " + generated + " multicasters of " + names.size() + " interfaces in " + millis + " ms");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Set<String> scan(ForkJoinPool pool) throws IOException, InterruptedException, ExecutionException {
+        List<Callable<String>> tasks = new ArrayList<>();
+        List<JarFile> jars = new ArrayList<>();
+        try {
+            for (Path input : inputs) {
+                if (Files.isDirectory(input)) {
+                    List<Path> files;
+                    try (Stream<Path> walk = Files.walk(input)) {
+                        files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+                    }
+                    for (Path file : files) {
+                        String path = input.relativize(file).toString().replace(File.separatorChar, '/');
+                        tasks.add(() -> getInterfaceName(path, () -> Files.newInputStream(file)));
+                    }
+                } else if (Files.isRegularFile(input)) {
+                    // a jar file can be read by several threads at the same time
+                    JarFile jar = new JarFile(input.toFile());
+                    jars.add(jar);
+                    for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements();) {
+                        JarEntry entry = entries.nextElement();
+                        tasks.add(() -> getInterfaceName(entry.getName(), () -> jar.getInputStream(entry)));
+                    }
+                } else {
+                    throw new IllegalArgumentException(input + " does not exist!");
+                }
+            }
+            Set<String> names = new TreeSet<>();
+            for (Future<String> name : pool.invokeAll(tasks)) {
+                if (name.get() != null) {
+                    names.add(name.get());
+                }
+            }
+            return names;
+        } finally {
+            for (JarFile jar : jars) {
+                jar.close();
+            }
+        }
+    }
+
+    // * matches a name without dots, ** matches anything
+    private Pattern toPattern(String text) {
+        StringBuilder regex = new StringBuilder();
+        String[] parts = text.trim().split("\\*\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                regex.append(".*");
+            }
+            String[] names = parts[i].split("\\*", -1);
+            for (int j = 0; j < names.length; j++) {
+                if (j > 0) {
+                    regex.append("[^.]*");
+                }
+                if (!names[j].isEmpty()) {
+                    regex.append(Pattern.quote(names[j]));
+                }
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private String valueOf(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing the value of " + option + "!");
+        }
+        return args[index];
+    }
+}
@@ -13,6 +13,8 @@ import java.io.InputStream;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -40,6 +42,15 @@ public class MulticasterGeneratorUI extends JFrame {
 
     private JTextField textFieldClassName;
     private JTextField textFieldListenerName;
+    private JComboBox<MulticasterMode> comboBoxMode;
+    private JCheckBox checkBoxCompletionSignalling;
+    private JCheckBox checkBoxCoalescing;
+    private JCheckBox checkBoxHolder;
+    private JCheckBox checkBoxJfrEvents;
+    private JCheckBox checkBoxMetrics;
+    private JCheckBox checkBoxRingDispatcher;
+    private JCheckBox checkBoxSharedMemoryBridge;
+    private JCheckBox checkBoxStripedHolder;
     private JTextArea textAreaGenerated;
 
     private MulticasterGeneratorUI() {
@@ -103,6 +114,31 @@ public class MulticasterGeneratorUI extends JFrame {
         textFieldListenerName = new JTextField();
         textFieldListenerName.setAlignmentX(Component.LEFT_ALIGNMENT);
         panel.add(textFieldListenerName);
+        JLabel labelMode = new JLabel("Generation mode:");
+        labelMode.setAlignmentX(Component.LEFT_ALIGNMENT);
+        panel.add(labelMode);
+        comboBoxMode = new JComboBox<>(MulticasterMode.values());
+        comboBoxMode.setAlignmentX(Component.LEFT_ALIGNMENT);
+        panel.add(comboBoxMode);
+        JPanel options = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        options.setAlignmentX(Component.LEFT_ALIGNMENT);
+        checkBoxCompletionSignalling = new JCheckBox("Completion future");
+        options.add(checkBoxCompletionSignalling);
+        checkBoxCoalescing = new JCheckBox("Coalescer");
+        options.add(checkBoxCoalescing);
+        checkBoxHolder = new JCheckBox("Atomic holder");
+        options.add(checkBoxHolder);
+        checkBoxJfrEvents = new JCheckBox("JFR events");
+        options.add(checkBoxJfrEvents);
+        checkBoxMetrics = new JCheckBox("Metrics");
+        options.add(checkBoxMetrics);
+        checkBoxRingDispatcher = new JCheckBox("Ring dispatcher");
+        options.add(checkBoxRingDispatcher);
+        checkBoxSharedMemoryBridge = new JCheckBox("Shared memory bridge");
+        options.add(checkBoxSharedMemoryBridge);
+        checkBoxStripedHolder = new JCheckBox("Striped holder");
+        options.add(checkBoxStripedHolder);
+        panel.add(options);
         return panel;
     }
 
@@ -136,6 +172,15 @@ public class MulticasterGeneratorUI extends JFrame {
         }
         try {
             MulticasterGenerator generator = new MulticasterGenerator();
+            generator.setMode((MulticasterMode) comboBoxMode.getSelectedItem());
+            generator.setCompletionSignalling(checkBoxCompletionSignalling.isSelected());
+            generator.setCoalescing(checkBoxCoalescing.isSelected());
+            generator.setHolder(checkBoxHolder.isSelected());
+            generator.setJfrEvents(checkBoxJfrEvents.isSelected());
+            generator.setMetrics(checkBoxMetrics.isSelected());
+            generator.setRingDispatcher(checkBoxRingDispatcher.isSelected());
+            generator.setSharedMemoryBridge(checkBoxSharedMemoryBridge.isSelected());
+            generator.setStripedHolder(checkBoxStripedHolder.isSelected());
             String generatedCode = generator.generate(className, listenerNames.split("\\,"));
             textAreaGenerated.setText(generatedCode);
             textAreaGenerated.setCaretPosition(0);
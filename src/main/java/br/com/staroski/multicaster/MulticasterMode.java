@@ -0,0 +1,32 @@
+package br.com.staroski.multicaster;
+
+public enum MulticasterMode {
+
+    TREE("multicaster.template"),
+
+    ARRAY("array-multicaster.template"),
+
+    INDEXED("indexed-multicaster.template"),
+
+    ASYNC("async-multicaster.template"),
+
+    PARALLEL("parallel-multicaster.template"),
+
+    WEAK("weak-multicaster.template"),
+
+    SELECTIVE("selective-multicaster.template"),
+
+    PRIORITY("priority-multicaster.template"),
+
+    FILTERED("filtered-multicaster.template");
+
+    private final String template;
+
+    private MulticasterMode(String template) {
+        this.template = template;
+    }
+
+    String getTemplate() {
+        return template;
+    }
+}
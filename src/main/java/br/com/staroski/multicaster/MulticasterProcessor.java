@@ -0,0 +1,117 @@
+package br.com.staroski.multicaster;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+@SupportedAnnotationTypes("br.com.staroski.multicaster.GenerateMulticaster")
+public final class MulticasterProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(GenerateMulticaster.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, "@GenerateMulticaster can only be used on interfaces!", element);
+                continue;
+            }
+            TypeElement interfaceElement = (TypeElement) element;
+            try {
+                generate(interfaceElement, interfaceElement.getAnnotation(GenerateMulticaster.class));
+            } catch (Exception e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, "Multicaster not generated: " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    private void collectMethods(TypeElement interfaceElement, List<MethodModel> methods) {
+        for (Element member : interfaceElement.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.METHOD && member.getModifiers().contains(Modifier.ABSTRACT)) {
+                ExecutableElement method = (ExecutableElement) member;
+                List<? extends VariableElement> parameters = method.getParameters();
+                TypeModel[] parameterTypes = new TypeModel[parameters.size()];
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    parameterTypes[i] = toTypeModel(parameters.get(i).asType());
+                }
+                methods.add(new MethodModel(method.getSimpleName().toString(), toTypeModel(method.getReturnType()), parameterTypes));
+            }
+        }
+        for (TypeMirror superinterface : interfaceElement.getInterfaces()) {
+            collectMethods((TypeElement) processingEnv.getTypeUtils().asElement(superinterface), methods);
+        }
+    }
+
+    private void generate(TypeElement interfaceElement, GenerateMulticaster annotation) throws Exception {
+        String packageName = processingEnv.getElementUtils().getPackageOf(interfaceElement).getQualifiedName().toString();
+        String className = annotation.className().isEmpty() ? interfaceElement.getSimpleName() + "Multicaster" : annotation.className();
+        String fullClassName = packageName.isEmpty() ? className : packageName + "." + className;
+
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setMode(annotation.mode());
+        generator.setCoalescing(annotation.coalescing());
+        generator.setCompletionSignalling(annotation.completionSignalling());
+        generator.setHolder(annotation.holder());
+        generator.setJfrEvents(annotation.jfrEvents());
+        generator.setMetrics(annotation.metrics());
+        generator.setParallelThreshold(annotation.parallelThreshold());
+        generator.setRingDispatcher(annotation.ringDispatcher());
+        generator.setSharedMemoryBridge(annotation.sharedMemoryBridge());
+        generator.setStripedHolder(annotation.stripedHolder());
+        for (GenerateMulticaster.Reducer reducer : annotation.resultReducers()) {
+            generator.setResultReducer(reducer.method(), reducer.reducer());
+        }
+
+        List<MethodModel> methods = new ArrayList<>();
+        collectMethods(interfaceElement, methods);
+        TypeModel interfaceType = new TypeModel(interfaceElement.getQualifiedName().toString(), interfaceElement.getSimpleName().toString(), methods.toArray(new MethodModel[methods.size()]));
+        String javaCode = generator.generate(fullClassName, new TypeModel[] { interfaceType });
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(fullClassName, interfaceElement);
+        try (Writer writer = file.openWriter()) {
+            writer.write(javaCode);
+            writer.write("\n");
+        }
+    }
+
+    // type variables are erased, the generated code uses raw types like the reflection based generation does
+    private TypeModel toTypeModel(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return new TypeModel(toTypeModel(((ArrayType) type).getComponentType()));
+        }
+        if (type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID) {
+            return new TypeModel(type.toString(), type.toString(), true);
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            return new TypeModel(element.getQualifiedName().toString(), element.getSimpleName().toString(), false, element.getKind() == ElementKind.ENUM);
+        }
+        if (type.getKind() == TypeKind.TYPEVAR) {
+            return toTypeModel(processingEnv.getTypeUtils().erasure(type));
+        }
+        String name = type.toString();
+        return new TypeModel(name, name.substring(name.lastIndexOf('.') + 1), false);
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.staroski.multicaster;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class Multicasters {
+
+    private static final ClassValue<Multicaster<?>> MULTICASTERS = new ClassValue<Multicaster<?>>() {
+
+        @Override
+        protected Multicaster<?> computeValue(Class<?> type) {
+            try {
+                return create(type);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(type.getName() + " is not accessible!", e);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    public static <T> Multicaster<T> of(Class<T> interfaceType) {
+        if (interfaceType == null) {
+            throw new IllegalArgumentException("null");
+        }
+        if (!interfaceType.isInterface()) {
+            throw new IllegalArgumentException(interfaceType.getName() + " is not an interface!");
+        }
+        return (Multicaster<T>) MULTICASTERS.get(interfaceType);
+    }
+
+    private static <T> Multicaster<T> create(Class<T> interfaceType) throws ReflectiveOperationException {
+        Lookup lookup = lookupFor(interfaceType);
+        String className = lookup.lookupClass().getPackageName().replace('.', '/') + "/" + interfaceType.getName().substring(interfaceType.getName().lastIndexOf('.') + 1) + "$$Multicaster";
+        Method[] methods = getUniqueMethods(interfaceType);
+        byte[] bytes = new MulticasterClassWriter(className, interfaceType, methods).toByteArray();
+        Lookup hidden = lookup.defineHiddenClass(bytes, true);
+        Class<?> implementation = hidden.lookupClass();
+        MethodHandle constructor = hidden.findConstructor(implementation, MethodType.methodType(void.class, Object[].class));
+        MethodHandle listeners = hidden.findGetter(implementation, "listeners", Object[].class);
+        return new Multicaster<>(interfaceType, //
+                implementation, //
+                constructor.asType(MethodType.methodType(Object.class, Object[].class)), //
+                listeners.asType(MethodType.methodType(Object[].class, Object.class)));
+    }
+
+    private static Method[] getUniqueMethods(Class<?> interfaceType) {
+        Map<String, Method> unique = new LinkedHashMap<>();
+        for (Method method : MulticasterGenerator.getMethods(interfaceType)) {
+            unique.putIfAbsent(method.getName() + MulticasterClassWriter.getDescriptor(method), method);
+        }
+        return unique.values().toArray(new Method[unique.size()]);
+    }
+
+    // defines the class next to the interface when its package is open to us, so non public interfaces and other class loaders work too
+    private static Lookup lookupFor(Class<?> interfaceType) throws IllegalAccessException {
+        try {
+            return MethodHandles.privateLookupIn(interfaceType, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            if (!Modifier.isPublic(interfaceType.getModifiers())) {
+                throw e;
+            }
+            return MethodHandles.lookup();
+        }
+    }
+
+    private Multicasters() {}
+}
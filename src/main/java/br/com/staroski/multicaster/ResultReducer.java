@@ -0,0 +1,43 @@
+package br.com.staroski.multicaster;
+
+import java.util.Collection;
+import java.util.List;
+
+public enum ResultReducer {
+
+    ALL_MATCH,
+
+    ANY_MATCH,
+
+    FIRST_NON_NULL,
+
+    SUM,
+
+    COLLECT;
+
+    static ResultReducer defaultFor(TypeModel returnType) {
+        if (returnType.is(boolean.class) || returnType.is(Boolean.class)) {
+            return ALL_MATCH;
+        }
+        if (returnType.isPrimitive()) {
+            return SUM;
+        }
+        return FIRST_NON_NULL;
+    }
+
+    boolean accepts(TypeModel returnType) {
+        switch (this) {
+            case ALL_MATCH:
+            case ANY_MATCH:
+                return returnType.is(boolean.class) || returnType.is(Boolean.class);
+            case FIRST_NON_NULL:
+                return !returnType.isPrimitive();
+            case SUM:
+                return returnType.isPrimitive() && !returnType.is(boolean.class) && !returnType.is(char.class) && !returnType.is(void.class);
+            case COLLECT:
+                return returnType.is(List.class) || returnType.is(Collection.class) || returnType.is(Iterable.class) || returnType.is(Object.class);
+            default:
+                return false;
+        }
+    }
+}
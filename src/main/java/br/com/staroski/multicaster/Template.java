@@ -0,0 +1,91 @@
+package br.com.staroski.multicaster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// a template split once into literal texts and ${...} tags, so rendering is a single pass over the segments
+final class Template {
+
+    private static final ConcurrentMap<String, Template> TEMPLATES = new ConcurrentHashMap<>();
+
+    static Template load(String name) throws IOException {
+        Template template = TEMPLATES.get(name);
+        if (template == null) {
+            template = parse(read(name));
+            Template loaded = TEMPLATES.putIfAbsent(name, template);
+            if (loaded != null) {
+                template = loaded;
+            }
+        }
+        return template;
+    }
+
+    // a fragment starts with the imports it needs, which are kept apart to be moved to the imports of the generated class
+    static Template parse(String text) {
+        List<String> imports = new ArrayList<>();
+        while (text.startsWith("import ")) {
+            imports.add(text.substring("import ".length(), text.indexOf(';')));
+            text = text.substring(text.indexOf('\n') + 1);
+        }
+        text = text.replaceFirst("^\\s*\\n", "").stripTrailing();
+        List<String> texts = new ArrayList<>();
+        List<String> tags = new ArrayList<>();
+        int from = 0;
+        for (int start = text.indexOf("${"); start != -1; start = text.indexOf("${", from)) {
+            int end = text.indexOf('}', start);
+            if (end == -1) {
+                break;
+            }
+            texts.add(text.substring(from, start));
+            tags.add(text.substring(start, end + 1));
+            from = end + 1;
+        }
+        texts.add(text.substring(from));
+        return new Template(texts.toArray(new String[texts.size()]), tags.toArray(new String[tags.size()]), imports);
+    }
+
+    private static String read(String name) throws IOException {
+        try (InputStream in = Template.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Template " + name + " not found!");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = -1; (read = in.read(buffer)) != -1; out.write(buffer, 0, read)) {}
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // texts[i] comes before tags[i], the last text comes after the last tag
+    private final String[] texts;
+    private final String[] tags;
+    private final List<String> imports;
+
+    private Template(String[] texts, String[] tags, List<String> imports) {
+        this.texts = texts;
+        this.tags = tags;
+        this.imports = Collections.unmodifiableList(imports);
+    }
+
+    List<String> getImports() {
+        return imports;
+    }
+
+    // tags without a value are kept as they are
+    StringBuilder render(Map<String, ? extends CharSequence> values, StringBuilder out) {
+        for (int i = 0; i < tags.length; i++) {
+            out.append(texts[i]);
+            CharSequence value = values.get(tags[i]);
+            out.append(value != null ? value : tags[i]);
+        }
+        return out.append(texts[tags.length]);
+    }
+}
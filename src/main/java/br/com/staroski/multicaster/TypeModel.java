@@ -0,0 +1,108 @@
+package br.com.staroski.multicaster;
+
+import java.lang.reflect.Method;
+
+// the parts of a type the generator needs, read from a Class or from the elements of an annotation processor
+final class TypeModel {
+
+    // reading the methods of an interface through reflection is done once per class
+    private static final ClassValue<TypeModel> INTERFACES = new ClassValue<TypeModel>() {
+
+        @Override
+        protected TypeModel computeValue(Class<?> type) {
+            Method[] methods = MulticasterGenerator.getMethods(type);
+            MethodModel[] models = new MethodModel[methods.length];
+            for (int i = 0; i < methods.length; i++) {
+                models[i] = MethodModel.of(methods[i]);
+            }
+            String name = type.getCanonicalName() != null ? type.getCanonicalName() : type.getName();
+            return new TypeModel(name, type.getSimpleName(), models);
+        }
+    };
+
+    static TypeModel of(Class<?> type) {
+        if (type.isArray()) {
+            return new TypeModel(of(type.getComponentType()));
+        }
+        String name = type.getCanonicalName() != null ? type.getCanonicalName() : type.getName();
+        return new TypeModel(name, type.getSimpleName(), type.isPrimitive(), type.isEnum());
+    }
+
+    static TypeModel ofInterface(Class<?> type) {
+        return INTERFACES.get(type);
+    }
+
+    private final String name;
+    private final String simpleName;
+    private final boolean primitive;
+    private final boolean enumeration;
+    private final TypeModel componentType;
+    private final MethodModel[] methods;
+
+    TypeModel(String name, String simpleName, boolean primitive) {
+        this(name, simpleName, primitive, false);
+    }
+
+    TypeModel(String name, String simpleName, boolean primitive, boolean enumeration) {
+        this.name = name;
+        this.simpleName = simpleName;
+        this.primitive = primitive;
+        this.enumeration = enumeration;
+        this.componentType = null;
+        this.methods = null;
+    }
+
+    TypeModel(String name, String simpleName, MethodModel[] methods) {
+        this.name = name;
+        this.simpleName = simpleName;
+        this.primitive = false;
+        this.enumeration = false;
+        this.componentType = null;
+        this.methods = methods;
+    }
+
+    TypeModel(TypeModel componentType) {
+        this.name = componentType.name + "[]";
+        this.simpleName = componentType.simpleName + "[]";
+        this.primitive = false;
+        this.enumeration = false;
+        this.componentType = componentType;
+        this.methods = null;
+    }
+
+    TypeModel getComponentType() {
+        return componentType;
+    }
+
+    MethodModel[] getMethods() {
+        return methods;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getSimpleName() {
+        return simpleName;
+    }
+
+    boolean is(Class<?> type) {
+        return name.equals(type.getCanonicalName());
+    }
+
+    boolean isArray() {
+        return componentType != null;
+    }
+
+    boolean isEnum() {
+        return enumeration;
+    }
+
+    boolean isInterface() {
+        return methods != null;
+    }
+
+    boolean isPrimitive() {
+        return primitive;
+    }
+}
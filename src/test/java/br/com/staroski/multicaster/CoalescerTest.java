@@ -0,0 +1,167 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CoalescerTest {
+
+    public interface Counter {
+
+        void count(int producer, int value);
+    }
+
+    private static final int PRODUCERS = 8;
+    private static final int CALLS = 20_000;
+
+    private static Generated multicaster;
+
+    @BeforeAll
+    static void compile(@TempDir Path cache) throws Exception {
+        multicaster = Generated.compile(cache, "CoalescerTestMulticaster", MulticasterMode.ARRAY, generator -> generator.setCoalescing(true), Counter.class);
+    }
+
+    @Test
+    void batchDeliversEveryCallOnceInProducerOrder() throws Throwable {
+        int[] last = new int[PRODUCERS];
+        int[] delivered = new int[1];
+        List<String> errors = new ArrayList<>();
+        // only the flushing thread calls the listener, one batch at a time
+        Counter listener = (producer, value) -> {
+            if (value != last[producer] + 1) {
+                errors.add(producer + ": " + value + " after " + last[producer]);
+            }
+            last[producer] = value;
+            delivered[0]++;
+        };
+        Supplier<Counter> target = () -> listener;
+        Counter coalescer = (Counter) multicaster.call("coalescing", target, multicaster.constant("Coalescing", "BATCH"), 3, 0L);
+
+        produce(coalescer);
+        Generated.invoke(coalescer.getClass(), coalescer, "flush");
+
+        assertEquals(List.of(), errors);
+        assertEquals(PRODUCERS * CALLS, delivered[0]);
+    }
+
+    @Test
+    void conflateDeliversTheLastCall() throws Throwable {
+        int[] last = new int[1];
+        Counter listener = (producer, value) -> last[0] = value;
+        Supplier<Counter> target = () -> listener;
+        Counter coalescer = (Counter) multicaster.call("coalescing", target, multicaster.constant("Coalescing", "CONFLATE"), 2, 0L);
+
+        produce(coalescer);
+        Generated.invoke(coalescer.getClass(), coalescer, "flush");
+
+        // the calls of every producer share the slot of the method, the last one is the last call of a producer
+        assertEquals(CALLS, last[0]);
+    }
+
+    @Test
+    void fullBuffersAreDeliveredOffTheProducerThread() throws Throwable {
+        BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+        Counter listener = (producer, value) -> threads.add(Thread.currentThread());
+        Supplier<Counter> target = () -> listener;
+        Counter coalescer = (Counter) multicaster.call("coalescing", target, multicaster.constant("Coalescing", "BATCH"), 2, 0L);
+
+        coalescer.count(0, 1);
+        coalescer.count(0, 2);
+
+        for (int i = 0; i < 2; i++) {
+            Thread thread = threads.poll(10, TimeUnit.SECONDS);
+            assertNotSame(Thread.currentThread(), thread);
+        }
+    }
+
+    @Test
+    void aListenerExceptionKeepsTheRestOfTheBatch() throws Throwable {
+        List<Integer> values = new ArrayList<>();
+        Counter listener = (producer, value) -> {
+            values.add(value);
+            if (value == 2) {
+                throw new IllegalStateException("listener failure");
+            }
+        };
+        Supplier<Counter> target = () -> listener;
+        Counter coalescer = (Counter) multicaster.call("coalescing", target, multicaster.constant("Coalescing", "BATCH"), 10, 0L);
+        List<Throwable> errors = new ArrayList<>();
+        UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> errors.add(e));
+        try {
+            for (int value = 1; value <= 3; value++) {
+                coalescer.count(0, value);
+            }
+            Generated.invoke(coalescer.getClass(), coalescer, "flush");
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+
+        assertEquals(List.of(1, 2, 3), values);
+        assertEquals(1, errors.size());
+        assertEquals("listener failure", errors.get(0).getMessage());
+    }
+
+    // the first buffer is detached when it fills, its timer must not cut short the delay of the next one
+    @Test
+    void aTimerOnlyFlushesItsOwnBuffer() throws Throwable {
+        BlockingQueue<Integer> values = new LinkedBlockingQueue<>();
+        Counter listener = (producer, value) -> values.add(value);
+        Supplier<Counter> target = () -> listener;
+        Counter coalescer = (Counter) multicaster.call("coalescing", target, multicaster.constant("Coalescing", "BATCH"), 2, 1000L);
+
+        long start = System.nanoTime();
+        coalescer.count(0, 1);
+        coalescer.count(0, 2);
+        assertEquals(1, values.poll(10, TimeUnit.SECONDS));
+        assertEquals(2, values.poll(10, TimeUnit.SECONDS));
+        Thread.sleep(Math.max(0, 400 - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        coalescer.count(0, 3);
+
+        // the timer of the first buffer fires at 1000 ms, the one of the second buffer at 1400 ms
+        Thread.sleep(Math.max(0, 1200 - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        assertNull(values.poll());
+        assertEquals(3, values.poll(10, TimeUnit.SECONDS));
+    }
+
+    private static void produce(Counter coalescer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int value = 1; value <= CALLS; value++) {
+                    coalescer.count(producer, value);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FilteredMulticasterTest {
+
+    public interface Keyed {
+
+        void event(int key, List<String> calls);
+    }
+
+    private static Generated multicaster;
+    private static Class<?> filterType;
+
+    @BeforeAll
+    static void compile(@TempDir Path cache) throws Exception {
+        multicaster = Generated.compile(cache, "FilteredMulticasterTestMulticaster", MulticasterMode.FILTERED, generator -> {}, Keyed.class);
+        filterType = multicaster.nested("Filter");
+    }
+
+    // equal for the same key, like a record would be, and counting how often the filters of a key are asked
+    private static Object filter(int key, AtomicInteger asked) {
+        InvocationHandler handler = new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] arguments) {
+                switch (method.getName()) {
+                    case "accept":
+                        asked.incrementAndGet();
+                        return ((Object[]) arguments[1])[0].equals(key);
+                    case "equals":
+                        return arguments[0] != null && Proxy.isProxyClass(arguments[0].getClass()) && arguments[0].hashCode() == key;
+                    case "hashCode":
+                        return key;
+                    default:
+                        return "filter " + key;
+                }
+            }
+        };
+        return Proxy.newProxyInstance(filterType.getClassLoader(), new Class<?>[] { filterType }, handler);
+    }
+
+    private static Keyed listener(String name) {
+        return (key, calls) -> calls.add(name);
+    }
+
+    private static List<String> fire(Object keyed, int key) {
+        List<String> calls = new ArrayList<>();
+        ((Keyed) keyed).event(key, calls);
+        return calls;
+    }
+
+    @Test
+    void equalFiltersShareAGroup() throws Throwable {
+        AtomicInteger asked = new AtomicInteger();
+        Object keyed = multicaster.call("add", null, listener("a1"), filter(1, asked));
+        keyed = multicaster.call("add", keyed, listener("b"), filter(2, asked));
+        keyed = multicaster.call("add", keyed, listener("all"));
+        keyed = multicaster.call("add", keyed, listener("a2"), filter(1, asked));
+
+        assertEquals(List.of("a1", "a2", "all"), fire(keyed, 1));
+        // one filter for each of the two keys
+        assertEquals(2, asked.get());
+        assertEquals(List.of("b", "all"), fire(keyed, 2));
+        assertEquals(List.of("all"), fire(keyed, 3));
+    }
+
+    @Test
+    void removingTheLastListenerOfAGroupDropsIt() throws Throwable {
+        AtomicInteger asked = new AtomicInteger();
+        Keyed all = listener("all");
+        Keyed a = listener("a");
+        Keyed b = listener("b");
+        Object keyed = multicaster.call("add", null, a, filter(1, asked));
+        keyed = multicaster.call("add", keyed, b, filter(2, asked));
+        keyed = multicaster.call("add", keyed, all);
+
+        keyed = multicaster.call("remove", keyed, a);
+        asked.set(0);
+        assertEquals(List.of("all"), fire(keyed, 1));
+        assertEquals(1, asked.get());
+
+        keyed = multicaster.call("remove", keyed, b);
+        assertSame(all, keyed);
+    }
+
+    @Test
+    void listenersKeepTheirOrderWithinAGroup() throws Throwable {
+        AtomicInteger asked = new AtomicInteger();
+        List<String> expected = new ArrayList<>();
+        Object keyed = null;
+        for (int i = 0; i < 100; i++) {
+            keyed = multicaster.call("add", keyed, listener("l" + i), filter(i % 3, asked));
+            if (i % 3 == 1) {
+                expected.add("l" + i);
+            }
+        }
+        assertEquals(expected, fire(keyed, 1));
+        assertEquals(100, multicaster.call("size", keyed));
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.staroski.multicaster;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+// a multicaster generated and compiled by the test, its static methods and nested types are reached by reflection
+final class Generated {
+
+    // the class is named after the test and the interface, a class loader cannot define the same name twice
+    static Generated compile(Path cacheDirectory, String name, MulticasterMode mode, Consumer<MulticasterGenerator> options, Class<?> interfaceType) throws Exception {
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setMode(mode);
+        options.accept(generator);
+        String className = interfaceType.getPackageName() + "." + name;
+        return new Generated(new MulticasterCompiler(generator, cacheDirectory).compile(className, interfaceType));
+    }
+
+    // the first public method with that name and argument count, the tests never pass a null to an overload
+    static Object invoke(Class<?> type, Object target, String name, Object... arguments) throws Throwable {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == arguments.length && Modifier.isStatic(method.getModifiers()) == (target == null)) {
+                method.setAccessible(true);
+                try {
+                    return method.invoke(target, arguments);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+        throw new NoSuchMethodException(type.getName() + "." + name);
+    }
+
+    private final Class<?> type;
+
+    private Generated(Class<?> type) {
+        this.type = type;
+    }
+
+    Object call(String name, Object... arguments) throws Throwable {
+        return invoke(type, null, name, arguments);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    Object constant(String enumName, String constantName) throws ClassNotFoundException {
+        return Enum.valueOf((Class) nested(enumName), constantName);
+    }
+
+    Class<?> nested(String simpleName) throws ClassNotFoundException {
+        return Class.forName(type.getName() + "$" + simpleName, true, type.getClassLoader());
+    }
+}
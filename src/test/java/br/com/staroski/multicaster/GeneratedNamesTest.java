@@ -0,0 +1,216 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// every parameter is named after its type, so these types give parameters the names of the generated locals
+class GeneratedNamesTest {
+
+    public interface Notices {
+
+        final class Result {}
+
+        final class Sum {}
+
+        final class Results {}
+
+        final class Listeners {}
+
+        final class I {}
+
+        final class Listener {}
+
+        final class Filters {}
+
+        final class Ends {}
+
+        final class Arguments {}
+
+        final class G {}
+
+        final class Start {}
+
+        final class Slot {}
+
+        void result(Result result);
+
+        void sum(Sum sum);
+
+        void results(Results results);
+
+        void onListeners(Listeners listeners);
+
+        void onI(I i);
+
+        void onListener(Listener listener);
+
+        void onFilters(Filters filters);
+
+        void onEnds(Ends ends);
+
+        void onArguments(Arguments arguments);
+
+        void onG(G g);
+
+        void onStart(Start start);
+
+        void onSlot(Slot slot);
+    }
+
+    public interface Queries {
+
+        final class Result {}
+
+        final class Sum {}
+
+        final class Results {}
+
+        final class Listeners {}
+
+        final class I {}
+
+        final class Listener {}
+
+        final class Filters {}
+
+        final class Ends {}
+
+        final class Arguments {}
+
+        final class G {}
+
+        final class Start {}
+
+        final class Slot {}
+
+        boolean result(Result result);
+
+        int sum(Sum sum);
+
+        List<Object> results(Results results);
+
+        String onListeners(Listeners listeners);
+
+        int onI(I i);
+
+        Listener onListener(Listener listener);
+
+        boolean onFilters(Filters filters);
+
+        int onEnds(Ends ends);
+
+        Object onArguments(Arguments arguments);
+
+        long onG(G g);
+
+        Start onStart(Start start);
+
+        Slot onSlot(Slot slot);
+    }
+
+    private static final Consumer<MulticasterGenerator> NO_OPTIONS = generator -> {};
+
+    private static final Consumer<MulticasterGenerator> ALL_OPTIONS = generator -> {
+        generator.setMetrics(true);
+        generator.setJfrEvents(true);
+        generator.setRingDispatcher(true);
+        generator.setResultReducer("results", ResultReducer.COLLECT);
+    };
+
+    @Test
+    void parametersNeverClashWithGeneratedLocals(@TempDir Path cache) throws Exception {
+        for (MulticasterMode mode : MulticasterMode.values()) {
+            Generated.compile(cache, "Notices" + mode, mode, NO_OPTIONS, Notices.class);
+            Generated.compile(cache, "NoticesWithOptions" + mode, mode, ALL_OPTIONS, Notices.class);
+            if (mode != MulticasterMode.ASYNC) {
+                Generated.compile(cache, "Queries" + mode, mode, NO_OPTIONS, Queries.class);
+                Generated.compile(cache, "QueriesWithOptions" + mode, mode, ALL_OPTIONS, Queries.class);
+            }
+        }
+    }
+
+    @Test
+    void reducersStillReduce(@TempDir Path cache) throws Throwable {
+        Generated multicaster = Generated.compile(cache, "ReducedQueries", MulticasterMode.ARRAY, ALL_OPTIONS, Queries.class);
+        Object queries = null;
+        for (int i = 1; i <= 3; i++) {
+            int value = i;
+            queries = multicaster.call("add", queries, new Queries() {
+
+                @Override
+                public boolean result(Result result) {
+                    return value != 2;
+                }
+
+                @Override
+                public int sum(Sum sum) {
+                    return value;
+                }
+
+                @Override
+                public List<Object> results(Results results) {
+                    return List.of(value);
+                }
+
+                @Override
+                public String onListeners(Listeners listeners) {
+                    return value == 2 ? "second" : null;
+                }
+
+                @Override
+                public int onI(I i) {
+                    return value * 10;
+                }
+
+                @Override
+                public Listener onListener(Listener listener) {
+                    return listener;
+                }
+
+                @Override
+                public boolean onFilters(Filters filters) {
+                    return value == 3;
+                }
+
+                @Override
+                public int onEnds(Ends ends) {
+                    return 1;
+                }
+
+                @Override
+                public Object onArguments(Arguments arguments) {
+                    return arguments;
+                }
+
+                @Override
+                public long onG(G g) {
+                    return value;
+                }
+
+                @Override
+                public Start onStart(Start start) {
+                    return start;
+                }
+
+                @Override
+                public Slot onSlot(Slot slot) {
+                    return slot;
+                }
+            });
+        }
+        assertEquals(false, ((Queries) queries).result(null));
+        assertEquals(6, ((Queries) queries).sum(null));
+        assertEquals(List.of(List.of(1), List.of(2), List.of(3)), ((Queries) queries).results(null));
+        assertEquals("second", ((Queries) queries).onListeners(null));
+        assertEquals(60, ((Queries) queries).onI(null));
+        Queries.Listener listener = new Queries.Listener();
+        assertSame(listener, ((Queries) queries).onListener(listener));
+    }
+}
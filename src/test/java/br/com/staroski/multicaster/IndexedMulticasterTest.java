@@ -0,0 +1,129 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IndexedMulticasterTest {
+
+    public interface Tick {
+
+        void tick(List<Tick> calls);
+    }
+
+    private static Generated multicaster;
+
+    @BeforeAll
+    static void compile(@TempDir Path cache) throws Exception {
+        multicaster = Generated.compile(cache, "IndexedMulticasterTestMulticaster", MulticasterMode.INDEXED, generator -> {}, Tick.class);
+    }
+
+    private static Tick newListener() {
+        return new Tick() {
+
+            @Override
+            public void tick(List<Tick> calls) {
+                calls.add(this);
+            }
+        };
+    }
+
+    @Test
+    void olderSnapshotsKeepTheirListeners() throws Throwable {
+        Tick[] listeners = new Tick[6];
+        Object tick = null;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = newListener();
+            tick = multicaster.call("add", tick, listeners[i]);
+        }
+        Object older = tick;
+        Object removed = multicaster.call("remove", older, listeners[1]);
+        Object branch = multicaster.call("add", older, newListener());
+
+        assertEquals(true, multicaster.call("contains", older, listeners[1]));
+        assertEquals(false, multicaster.call("contains", removed, listeners[1]));
+        assertEquals(true, multicaster.call("contains", branch, listeners[1]));
+        assertEquals(6, multicaster.call("size", older));
+        assertEquals(5, multicaster.call("size", removed));
+        assertEquals(7, multicaster.call("size", branch));
+        // the others keep their registration order
+        assertArrayEquals(new Tick[] { listeners[0], listeners[2], listeners[3], listeners[4], listeners[5] }, (Object[]) multicaster.call("toArray", removed));
+    }
+
+    // identity hashes rarely collide, so the index is driven with made up ones: equal hashes, and hashes that only differ in
+    // their last bits
+    @Test
+    void indexKeepsListenersWithCollidingHashes() throws Throwable {
+        Class<?> type = multicaster.nested("IdentityIndex");
+        Field empty = type.getDeclaredField("EMPTY");
+        Method get = type.getDeclaredMethod("get", Object.class, int.class);
+        Method with = type.getDeclaredMethod("with", Object.class, int.class, long.class);
+        Method without = type.getDeclaredMethod("without", Object.class, int.class);
+        for (AccessibleObject member : new AccessibleObject[] { empty, get, with, without }) {
+            member.setAccessible(true);
+        }
+        int[] hashes = { 7, 7, 7, 7 | 1 << 31, 7 | 1 << 30, 7 | 1 << 25 };
+        Object[] keys = new Object[hashes.length];
+        Object index = empty.get(null);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new Object();
+            index = with.invoke(index, keys[i], hashes[i], (long) i);
+        }
+        for (int removed = 0; removed < keys.length; removed++) {
+            for (int i = 0; i < keys.length; i++) {
+                assertEquals(i < removed ? -1L : i, get.invoke(index, keys[i], hashes[i]));
+            }
+            index = without.invoke(index, keys[removed], hashes[removed]);
+        }
+    }
+
+    @Test
+    void randomOperationsMatchAList() throws Throwable {
+        Random random = new Random(42);
+        Tick[] pool = new Tick[64];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = newListener();
+        }
+        List<Object> snapshots = new ArrayList<>();
+        List<List<Tick>> expected = new ArrayList<>();
+        snapshots.add(null);
+        expected.add(new ArrayList<>());
+        for (int step = 0; step < 5_000; step++) {
+            // mostly the latest snapshot, sometimes an older one
+            int from = random.nextInt(10) == 0 ? random.nextInt(snapshots.size()) : snapshots.size() - 1;
+            List<Tick> listeners = new ArrayList<>(expected.get(from));
+            Tick listener = pool[random.nextInt(pool.length)];
+            Object result;
+            if (random.nextBoolean()) {
+                result = multicaster.call("add", snapshots.get(from), listener);
+                if (!listeners.contains(listener)) {
+                    listeners.add(listener);
+                }
+            } else {
+                result = multicaster.call("remove", snapshots.get(from), listener);
+                listeners.remove(listener);
+            }
+            snapshots.add(result);
+            expected.add(listeners);
+            for (Tick candidate : pool) {
+                assertEquals(listeners.contains(candidate), multicaster.call("contains", result, candidate));
+            }
+            List<Tick> calls = new ArrayList<>();
+            if (result != null) {
+                ((Tick) result).tick(calls);
+            }
+            assertEquals(listeners, calls);
+        }
+    }
+}
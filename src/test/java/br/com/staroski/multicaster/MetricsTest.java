@@ -0,0 +1,91 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MetricsTest {
+
+    public interface Ping {
+
+        void ping();
+    }
+
+    // every instance is equal to the others, the metrics must still tell them apart
+    static final class EqualListener implements Ping {
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof EqualListener;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+        @Override
+        public void ping() {}
+    }
+
+    private static Generated multicaster;
+
+    @BeforeAll
+    static void compile(@TempDir Path cache) throws Exception {
+        multicaster = Generated.compile(cache, "MetricsTestMulticaster", MulticasterMode.ARRAY, generator -> generator.setMetrics(true), Ping.class);
+    }
+
+    @BeforeEach
+    void reset() throws Throwable {
+        multicaster.call("resetMetrics");
+        multicaster.call("setMetricsSampling", 1);
+    }
+
+    @Test
+    void collectedListenersLeaveTheSnapshot() throws Throwable {
+        Ping listener = new EqualListener();
+        Ping ping = (Ping) multicaster.call("add", null, listener);
+        ping = (Ping) multicaster.call("add", ping, new EqualListener());
+        ping.ping();
+        assertEquals(2, listenerMetrics().size());
+
+        WeakReference<Ping> collected = new WeakReference<>(listener);
+        ping = (Ping) multicaster.call("remove", ping, listener);
+        listener = null;
+        for (int i = 0; i < 100 && collected.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(collected.get() == null, "the listener was not collected");
+        ping.ping();
+        assertEquals(1, listenerMetrics().size());
+    }
+
+    @Test
+    void equalListenersAreMeasuredApart() throws Throwable {
+        Ping ping = (Ping) multicaster.call("add", null, new EqualListener());
+        ping = (Ping) multicaster.call("add", ping, new EqualListener());
+        for (int i = 0; i < 10; i++) {
+            ping.ping();
+        }
+        List<?> metrics = listenerMetrics();
+        assertEquals(2, metrics.size());
+        for (Object metric : metrics) {
+            assertEquals(10L, Generated.invoke(metric.getClass(), metric, "getSamples"));
+        }
+    }
+
+    // the aggregate of the single method comes first
+    private static List<?> listenerMetrics() throws Throwable {
+        List<?> metrics = (List<?>) multicaster.call("metrics");
+        return metrics.subList(1, metrics.size());
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MulticasterCompilerTest {
+
+    public interface Beep {
+
+        void beep(List<String> calls);
+    }
+
+    private static Beep newListener(String name) {
+        return calls -> calls.add(name);
+    }
+
+    private static List<String> beep(Class<?> type) throws Throwable {
+        Object multicaster = Generated.invoke(type, null, "add", null, newListener("a"));
+        multicaster = Generated.invoke(type, null, "add", multicaster, newListener("b"));
+        List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        ((Beep) multicaster).beep(calls);
+        return calls;
+    }
+
+    @Test
+    void aNameIsReusedWithAnotherSource(@TempDir Path cache) throws Throwable {
+        String name = Beep.class.getPackageName() + ".MulticasterCompilerTestBeep";
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setMode(MulticasterMode.ARRAY);
+        MulticasterCompiler compiler = new MulticasterCompiler(generator, cache);
+        Class<?> array = compiler.compile(name, Beep.class);
+        generator.setMode(MulticasterMode.INDEXED);
+        Class<?> indexed = compiler.compile(name, Beep.class);
+        generator.setMode(MulticasterMode.ARRAY);
+
+        assertNotSame(array, indexed);
+        assertSame(array, compiler.compile(name, Beep.class));
+        assertEquals(List.of("a", "b"), beep(array));
+        assertEquals(List.of("a", "b"), beep(indexed));
+    }
+
+    @Test
+    void nestedClassesAreDefinedToo(@TempDir Path cache) throws Throwable {
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setMode(MulticasterMode.PARALLEL);
+        generator.setParallelThreshold(1);
+        MulticasterCompiler compiler = new MulticasterCompiler(generator, cache);
+        Class<?> parallel = compiler.compile(Beep.class.getPackageName() + ".MulticasterCompilerTestParallelBeep", Beep.class);
+
+        List<String> calls = beep(parallel);
+        assertEquals(2, calls.size());
+    }
+}
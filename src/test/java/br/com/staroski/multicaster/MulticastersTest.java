@@ -0,0 +1,201 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class MulticastersTest {
+
+    public interface Primitives {
+
+        void all(boolean z, byte b, char c, short s, int i, long j, float f, double d, String text, int[] array);
+
+        void wide(long first, double second, long third);
+    }
+
+    public interface Results {
+
+        boolean allow(int value);
+
+        Boolean maybe();
+
+        byte smallSum();
+
+        short shortSum();
+
+        int sum(int value);
+
+        long longSum(long value);
+
+        float floatSum();
+
+        double doubleSum(double value);
+
+        String name();
+    }
+
+    // not public, so the class must be defined next to it
+    interface Hidden {
+
+        int count();
+    }
+
+    interface Letters {
+
+        char letter();
+    }
+
+    private static Results results(boolean allow, Boolean maybe, int number, String name, List<String> calls) {
+        return new Results() {
+
+            @Override
+            public boolean allow(int value) {
+                calls.add(name + ".allow");
+                return allow;
+            }
+
+            @Override
+            public Boolean maybe() {
+                calls.add(name + ".maybe");
+                return maybe;
+            }
+
+            @Override
+            public byte smallSum() {
+                return (byte) number;
+            }
+
+            @Override
+            public short shortSum() {
+                return (short) number;
+            }
+
+            @Override
+            public int sum(int value) {
+                return number * value;
+            }
+
+            @Override
+            public long longSum(long value) {
+                return number * value;
+            }
+
+            @Override
+            public float floatSum() {
+                return number / 2f;
+            }
+
+            @Override
+            public double doubleSum(double value) {
+                return number * value;
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+        };
+    }
+
+    @Test
+    void argumentsReachEveryListener() {
+        Multicaster<Primitives> multicaster = Multicasters.of(Primitives.class);
+        List<Object> received = new ArrayList<>();
+        Primitives listener = new Primitives() {
+
+            @Override
+            public void all(boolean z, byte b, char c, short s, int i, long j, float f, double d, String text, int[] array) {
+                received.add(List.of(z, b, c, s, i, j, f, d, text, array));
+            }
+
+            @Override
+            public void wide(long first, double second, long third) {
+                received.add(List.of(first, second, third));
+            }
+        };
+        Primitives primitives = multicaster.add(multicaster.add(null, listener), listener);
+        int[] array = { 1 };
+
+        primitives.all(true, (byte) -2, 'x', (short) 300, 70_000, 1L << 40, 1.5f, -2.25, "text", array);
+        primitives.wide(Long.MIN_VALUE, Math.PI, Long.MAX_VALUE);
+
+        List<Object> all = List.of(true, (byte) -2, 'x', (short) 300, 70_000, 1L << 40, 1.5f, -2.25, "text", array);
+        List<Object> wide = List.of(Long.MIN_VALUE, Math.PI, Long.MAX_VALUE);
+        assertEquals(List.of(all, all, wide, wide), received);
+    }
+
+    @Test
+    void booleansStopAtTheFirstFalse() {
+        Multicaster<Results> multicaster = Multicasters.of(Results.class);
+        List<String> calls = new ArrayList<>();
+        Results composite = multicaster.add(null, results(true, null, 0, "a", calls));
+        composite = multicaster.add(composite, results(false, false, 0, "b", calls));
+        composite = multicaster.add(composite, results(true, true, 0, "c", calls));
+
+        assertFalse(composite.allow(1));
+        assertEquals(List.of("a.allow", "b.allow"), calls);
+        calls.clear();
+        assertSame(Boolean.FALSE, composite.maybe());
+        assertEquals(List.of("a.maybe", "b.maybe"), calls);
+
+        Results agreeing = multicaster.add(results(true, null, 0, "a", calls), results(true, true, 0, "c", calls));
+        assertTrue(agreeing.allow(1));
+        assertSame(Boolean.TRUE, agreeing.maybe());
+    }
+
+    @Test
+    void charResultsAreRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Multicasters.of(Letters.class));
+        assertTrue(e.getMessage().startsWith("letter returns char"), e.getMessage());
+    }
+
+    @Test
+    void nonPublicInterfacesAreSupported() {
+        Multicaster<Hidden> multicaster = Multicasters.of(Hidden.class);
+        Hidden one = () -> 1;
+        Hidden two = () -> 2;
+        Hidden composite = multicaster.add(multicaster.add(null, one), two);
+
+        assertEquals(3, composite.count());
+        assertEquals(2, multicaster.size(composite));
+        assertArrayEquals(new Hidden[] { one, two }, multicaster.toArray(composite));
+        assertSame(two, multicaster.remove(composite, one));
+    }
+
+    @Test
+    void numbersAreSummed() {
+        Multicaster<Results> multicaster = Multicasters.of(Results.class);
+        List<String> calls = new ArrayList<>();
+        Results composite = multicaster.add(null, results(true, null, 100, "a", calls));
+        composite = multicaster.add(composite, results(true, null, 100, "b", calls));
+        composite = multicaster.add(composite, results(true, null, 3, "c", calls));
+
+        assertEquals((byte) 203, composite.smallSum());
+        assertEquals((short) 203, composite.shortSum());
+        assertEquals(203 * 7, composite.sum(7));
+        assertEquals(203L << 33, composite.longSum(1L << 33));
+        assertEquals(101.5f, composite.floatSum());
+        assertEquals(203 * 0.5, composite.doubleSum(0.5));
+    }
+
+    @Test
+    void objectsAreTheFirstNonNull() {
+        Multicaster<Results> multicaster = Multicasters.of(Results.class);
+        List<String> calls = new ArrayList<>();
+        Results composite = multicaster.add(null, results(true, null, 0, null, calls));
+        composite = multicaster.add(composite, results(true, null, 0, "b", calls));
+        composite = multicaster.add(composite, results(true, null, 0, "c", calls));
+
+        assertEquals("b", composite.name());
+        assertNull(multicaster.add(results(true, null, 0, null, calls), results(true, null, 0, null, calls)).name());
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelMulticasterTest {
+
+    public interface Work {
+
+        void run(Set<Boolean> splits);
+
+        int count(Set<Boolean> splits);
+    }
+
+    private static Generated multicaster;
+
+    @BeforeAll
+    static void compile(@TempDir Path cache) throws Exception {
+        multicaster = Generated.compile(cache, "ParallelMulticasterTestMulticaster", MulticasterMode.PARALLEL, generator -> {}, Work.class);
+    }
+
+    // whether the listener is called from a ForkJoinPool task, whichever thread runs it
+    private static boolean isSplit() {
+        return StackWalker.getInstance().walk(frames -> frames.anyMatch(frame -> frame.getClassName().endsWith("$Fanout")));
+    }
+
+    private static Work newListeners(int count) throws Throwable {
+        Object work = null;
+        for (int i = 0; i < count; i++) {
+            work = multicaster.call("add", work, new Work() {
+
+                @Override
+                public void run(Set<Boolean> splits) {
+                    splits.add(isSplit());
+                }
+
+                @Override
+                public int count(Set<Boolean> splits) {
+                    splits.add(isSplit());
+                    return 1;
+                }
+            });
+        }
+        return (Work) work;
+    }
+
+    @AfterEach
+    void restore() throws Throwable {
+        multicaster.call("setParallelThreshold", 1024);
+    }
+
+    @Test
+    void theThresholdChangesAtRunTime() throws Throwable {
+        Work work = newListeners(64);
+        Set<Boolean> splits = ConcurrentHashMap.newKeySet();
+        work.run(splits);
+        assertEquals(Set.of(false), splits);
+
+        multicaster.call("setParallelThreshold", 1);
+        assertEquals(1, multicaster.call("getParallelThreshold"));
+        splits.clear();
+        work.run(splits);
+        assertEquals(Set.of(true), splits);
+        assertThrows(IllegalArgumentException.class, () -> multicaster.call("setParallelThreshold", 0));
+    }
+
+    @Test
+    void methodsThatReturnAValueAreNeverSplit() throws Throwable {
+        multicaster.call("setParallelThreshold", 1);
+        Work work = newListeners(64);
+        Set<Boolean> splits = ConcurrentHashMap.newKeySet();
+        assertEquals(64, work.count(splits));
+        assertEquals(Set.of(false), splits);
+    }
+}
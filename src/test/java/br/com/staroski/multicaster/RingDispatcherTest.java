@@ -0,0 +1,129 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RingDispatcherTest {
+
+    public interface Counter {
+
+        void count(int producer, int value);
+    }
+
+    public interface Sampler {
+
+        void sample(boolean flag, byte b, char c, short s, int i, long l, float f, double d, String text);
+    }
+
+    private static final int PRODUCERS = 8;
+    private static final int CALLS = 10_000;
+
+    private static Generated multicaster;
+    private static Generated sampler;
+
+    @BeforeAll
+    static void compile(@TempDir Path cache) throws Exception {
+        multicaster = Generated.compile(cache, "RingDispatcherTestMulticaster", MulticasterMode.ARRAY, generator -> generator.setRingDispatcher(true), Counter.class);
+        sampler = Generated.compile(cache, "RingDispatcherTestSampler", MulticasterMode.ARRAY, generator -> generator.setRingDispatcher(true), Sampler.class);
+    }
+
+    @Test
+    void blockDeliversEveryCallOnceInProducerOrder() throws Throwable {
+        assertEquals(PRODUCERS * CALLS, dispatch("BLOCK"));
+    }
+
+    // primitives travel in a row of longs, they must come back with the same bits
+    @Test
+    void argumentsArriveIntact() throws Throwable {
+        BlockingQueue<List<Object>> calls = new LinkedBlockingQueue<>();
+        Sampler listener = (flag, b, c, s, i, l, f, d, text) -> calls.add(Arrays.asList(flag, b, c, s, i, l, f, d, text));
+        Supplier<Sampler> target = () -> listener;
+        Object dispatcher = sampler.call("ringDispatcher", target, 4, sampler.constant("Backpressure", "BLOCK"));
+        ((Sampler) dispatcher).sample(true, Byte.MIN_VALUE, Character.MAX_VALUE, Short.MIN_VALUE, -1, Long.MIN_VALUE, -0.0f, Double.NaN, "x");
+        ((Sampler) dispatcher).sample(false, (byte) 1, 'a', (short) 2, Integer.MAX_VALUE, -1L, Float.MAX_VALUE, -Double.MIN_VALUE, null);
+        Generated.invoke(dispatcher.getClass(), dispatcher, "close");
+
+        assertEquals(Arrays.asList(true, Byte.MIN_VALUE, Character.MAX_VALUE, Short.MIN_VALUE, -1, Long.MIN_VALUE, -0.0f, Double.NaN, "x"), calls.poll(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(false, (byte) 1, 'a', (short) 2, Integer.MAX_VALUE, -1L, Float.MAX_VALUE, -Double.MIN_VALUE, null), calls.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void dropNewestCountsEveryCallItLoses() throws Throwable {
+        dispatch("DROP_NEWEST");
+    }
+
+    @Test
+    void dropOldestCountsEveryCallItLoses() throws Throwable {
+        dispatch("DROP_OLDEST");
+    }
+
+    // only the dispatcher thread calls the listener, the atomics publish what it saw; returns the delivered calls
+    private static int dispatch(String backpressure) throws Throwable {
+        AtomicIntegerArray last = new AtomicIntegerArray(PRODUCERS);
+        AtomicInteger delivered = new AtomicInteger();
+        Queue<String> errors = new ConcurrentLinkedQueue<>();
+        Counter listener = (producer, value) -> {
+            if (value <= last.get(producer)) {
+                errors.add(producer + ": " + value + " after " + last.get(producer));
+            }
+            last.set(producer, value);
+            delivered.incrementAndGet();
+        };
+        Supplier<Counter> target = () -> listener;
+        Object dispatcher = multicaster.call("ringDispatcher", target, 16, multicaster.constant("Backpressure", backpressure));
+        produce((Counter) dispatcher);
+        // the recorded calls are still dispatched after close
+        Generated.invoke(dispatcher.getClass(), dispatcher, "close");
+        long dropped = (Long) Generated.invoke(dispatcher.getClass(), dispatcher, "getDropped");
+        for (int i = 0; i < 1000 && delivered.get() + dropped < PRODUCERS * CALLS; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(), new ArrayList<>(errors));
+        assertEquals(PRODUCERS * CALLS, delivered.get() + dropped);
+        return delivered.get();
+    }
+
+    private static void produce(Counter dispatcher) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int value = 1; value <= CALLS; value++) {
+                    dispatcher.count(producer, value);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SharedMemoryBridgeTest {
+
+    public enum Level {
+        LOW, HIGH
+    }
+
+    public interface Telemetry {
+
+        void sample(String name, Level level, Integer boxed, byte[] data, int[] ids, long[] stamps, double[] values, String[] tags, long time);
+    }
+
+    public interface Counting {
+
+        int count();
+    }
+
+    public interface Listing {
+
+        void tags(List<String> tags);
+    }
+
+    public interface Beat {
+
+        void beat(int value);
+    }
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void argumentsArriveInTheImporter() throws Throwable {
+        Generated multicaster = Generated.compile(directory, "SharedMemoryBridgeTestMulticaster", MulticasterMode.ARRAY, generator -> generator.setSharedMemoryBridge(true), Telemetry.class);
+        BlockingQueue<Object[]> received = new ArrayBlockingQueue<>(2);
+        Telemetry listener = (name, level, boxed, data, ids, stamps, values, tags, time) -> received.add(new Object[] { name, level, boxed, data, ids, stamps, values, tags, time });
+        Supplier<Telemetry> target = () -> listener;
+        Path file = directory.resolve("telemetry.ring");
+        Telemetry exporter = (Telemetry) multicaster.call("exportTo", file, 4096);
+        AutoCloseable importer = (AutoCloseable) multicaster.call("importFrom", file, target);
+        try {
+            exporter.sample("cpu", Level.HIGH, 7, new byte[] { 1, 2 }, new int[] { 3, -4 }, new long[] { 5L << 40 }, new double[] { 0.5 }, new String[] { "a", null }, 42L);
+            exporter.sample(null, null, null, null, null, null, null, null, -1L);
+
+            Object[] first = received.poll(10, TimeUnit.SECONDS);
+            assertEquals("cpu", first[0]);
+            assertEquals(Level.HIGH, first[1]);
+            assertEquals(7, first[2]);
+            assertArrayEquals(new byte[] { 1, 2 }, (byte[]) first[3]);
+            assertArrayEquals(new int[] { 3, -4 }, (int[]) first[4]);
+            assertArrayEquals(new long[] { 5L << 40 }, (long[]) first[5]);
+            assertArrayEquals(new double[] { 0.5 }, (double[]) first[6]);
+            assertArrayEquals(new String[] { "a", null }, (String[]) first[7]);
+            assertEquals(42L, first[8]);
+
+            Object[] second = received.poll(10, TimeUnit.SECONDS);
+            for (int i = 0; i < 8; i++) {
+                assertNull(second[i]);
+            }
+            assertEquals(-1L, second[8]);
+        } finally {
+            importer.close();
+        }
+    }
+
+    // the importer reports a length the exporter cannot have written, skips what was published and goes on with the next calls
+    @Test
+    void corruptLengthsAreSkipped() throws Throwable {
+        Generated multicaster = Generated.compile(directory, "SharedMemoryBridgeTestBeat", MulticasterMode.ARRAY, generator -> generator.setSharedMemoryBridge(true), Beat.class);
+        BlockingQueue<Integer> received = new ArrayBlockingQueue<>(8);
+        Beat listener = received::add;
+        Supplier<Beat> target = () -> listener;
+        BlockingQueue<Throwable> errors = new ArrayBlockingQueue<>(8);
+        UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> errors.add(e));
+        try {
+            for (int length : new int[] { 0, -8, 12, 4096, Integer.MAX_VALUE }) {
+                Path file = directory.resolve("beat" + length + ".ring");
+                Beat exporter = (Beat) multicaster.call("exportTo", file, 4096);
+                exporter.beat(1);
+                exporter.beat(2);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    // the length of the first record, right after the header
+                    channel.write(ByteBuffer.allocate(4).putInt(0, length), 192);
+                }
+                AutoCloseable importer = (AutoCloseable) multicaster.call("importFrom", file, target);
+                try {
+                    Throwable error = errors.poll(10, TimeUnit.SECONDS);
+                    assertTrue(error instanceof IllegalStateException && error.getMessage().startsWith("Corrupt record of " + length + " bytes"), String.valueOf(error));
+                    exporter.beat(3);
+                    assertEquals(3, received.poll(10, TimeUnit.SECONDS));
+                    assertTrue(received.isEmpty());
+                } finally {
+                    importer.close();
+                }
+            }
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+    }
+
+    @Test
+    void methodsThatReturnAValueAreRejected() {
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setSharedMemoryBridge(true);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> generator.generate("test.CountingMulticaster", Counting.class));
+        assertTrue(e.getMessage().startsWith("count returns a value"), e.getMessage());
+    }
+
+    @Test
+    void parametersThatCannotBeEncodedAreRejected() {
+        MulticasterGenerator generator = new MulticasterGenerator();
+        generator.setSharedMemoryBridge(true);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> generator.generate("test.ListingMulticaster", Listing.class));
+        assertTrue(e.getMessage().contains("java.util.List"), e.getMessage());
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StripedHolderTest {
+
+    public interface Hit {
+
+        void hit(AtomicInteger hits);
+    }
+
+    // each instance counts its own calls, so a listener lost or delivered twice is told apart from the others
+    static final class CountingHit implements Hit {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public void hit(AtomicInteger hits) {
+            calls.incrementAndGet();
+            hits.incrementAndGet();
+        }
+    }
+
+    private static final int THREADS = 8;
+    private static final int LISTENERS = 2_000;
+
+    private static Generated multicaster;
+
+    @BeforeAll
+    static void compile(@TempDir Path cache) throws Exception {
+        multicaster = Generated.compile(cache, "StripedHolderTestMulticaster", MulticasterMode.ARRAY, generator -> generator.setStripedHolder(true), Hit.class);
+    }
+
+    @Test
+    void concurrentRegistrationKeepsEveryListener() throws Throwable {
+        Object holder = multicaster.nested("StripedHolder").getConstructor(int.class).newInstance(4);
+        Method add = holder.getClass().getMethod("add", Object.class);
+        Method remove = holder.getClass().getMethod("remove", Object.class);
+        CountingHit[][] listeners = new CountingHit[THREADS][LISTENERS];
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            CountingHit[] own = listeners[t];
+            futures.add(executor.submit(() -> {
+                start.await();
+                // every other listener is removed again, so adds and removes race on the same stripes
+                for (int i = 0; i < own.length; i++) {
+                    own[i] = new CountingHit();
+                    add.invoke(holder, own[i]);
+                    if (i % 2 == 1) {
+                        remove.invoke(holder, own[i - 1]);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Hit merged = (Hit) Generated.invoke(holder.getClass(), holder, "get");
+        assertSame(merged, Generated.invoke(holder.getClass(), holder, "get"));
+        AtomicInteger hits = new AtomicInteger();
+        merged.hit(hits);
+        assertEquals(THREADS * LISTENERS / 2, hits.get());
+        for (CountingHit[] own : listeners) {
+            for (int i = 0; i < own.length; i++) {
+                assertEquals(i % 2, own[i].calls.get());
+            }
+        }
+
+        for (CountingHit[] own : listeners) {
+            for (CountingHit listener : own) {
+                remove.invoke(holder, listener);
+            }
+        }
+        assertNull(Generated.invoke(holder.getClass(), holder, "get"));
+    }
+}
@@ -0,0 +1,88 @@
+package br.com.staroski.multicaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WeakMulticasterTest {
+
+    public interface Tock {
+
+        void tock(List<Tock> calls);
+    }
+
+    private static Generated multicaster;
+
+    @BeforeAll
+    static void compile(@TempDir Path cache) throws Exception {
+        multicaster = Generated.compile(cache, "WeakMulticasterTestMulticaster", MulticasterMode.WEAK, generator -> {}, Tock.class);
+    }
+
+    private static Tock newListener() {
+        return new Tock() {
+
+            @Override
+            public void tock(List<Tock> calls) {
+                calls.add(this);
+            }
+        };
+    }
+
+    private static void collect(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(reference.get() == null, "the listener was not collected");
+    }
+
+    @Test
+    void cleanupNeverChangesAPublishedSnapshot() throws Throwable {
+        Tock kept = newListener();
+        Tock dropped = newListener();
+        Object older = multicaster.call("add", multicaster.call("add", null, kept), dropped);
+        WeakReference<Tock> collected = new WeakReference<>(dropped);
+        dropped = null;
+        collect(collected);
+
+        List<Tock> calls = new ArrayList<>();
+        ((Tock) older).tock(calls);
+        assertEquals(List.of(kept), calls);
+        // the cleared reference is only dropped by the next add or remove, into a new snapshot
+        assertEquals(2, multicaster.call("size", older));
+        Tock added = newListener();
+        Object newer = multicaster.call("add", older, added);
+        // the reference reaches the queue a little after it is cleared
+        for (int i = 0; i < 100 && (Integer) multicaster.call("size", newer) != 2; i++) {
+            Thread.sleep(10);
+            newer = multicaster.call("add", older, added);
+        }
+        assertEquals(2, multicaster.call("size", newer));
+        assertEquals(2, multicaster.call("size", older));
+        // a branch of the older snapshot has not seen the clear either, so it is compacted too
+        Object branch = multicaster.call("remove", older, added);
+        assertNotSame(older, branch);
+        assertEquals(1, multicaster.call("size", branch));
+        Reference.reachabilityFence(kept);
+    }
+
+    @Test
+    void removingNullKeepsEveryListener() throws Throwable {
+        Tock listener = newListener();
+        Object tock = multicaster.call("add", multicaster.call("add", null, listener), newListener());
+        assertSame(tock, multicaster.call("remove", tock, null));
+        assertEquals(2, multicaster.call("size", tock));
+        Reference.reachabilityFence(listener);
+    }
+}